@@ -3,14 +3,20 @@ package com.springtest.cookapi.api;
 import com.springtest.cookapi.domain.exceptions.BadRequestException;
 import com.springtest.cookapi.domain.exceptions.ForbiddenException;
 import com.springtest.cookapi.domain.exceptions.NotFoundException;
+import com.springtest.cookapi.domain.exceptions.PreconditionFailedException;
+import com.springtest.cookapi.domain.exceptions.ServiceUnavailableException;
+import com.springtest.cookapi.domain.exceptions.TooManyRequestsException;
 import com.springtest.cookapi.domain.exceptions.UnauthorizedException;
 import com.springtest.cookapi.domain.responses.ExceptionResponse;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.method.annotation.HandlerMethodValidationException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 @ControllerAdvice
 public class ExceptionHandler {
@@ -44,6 +50,35 @@ public class ExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @org.springframework.web.bind.annotation.ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ExceptionResponse> handlePreconditionFailed(PreconditionFailedException ex) {
+        var response = new ExceptionResponse(HttpStatus.PRECONDITION_FAILED.value(), ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    // a concurrent write won between our version check and the flush
+    @org.springframework.web.bind.annotation.ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ExceptionResponse> handleOptimisticLocking(OptimisticLockingFailureException ex) {
+        var response = new ExceptionResponse(HttpStatus.CONFLICT.value(), "The resource was modified concurrently, reload it and retry");
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
+    @org.springframework.web.bind.annotation.ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ExceptionResponse> handleTooManyRequests(TooManyRequestsException ex) {
+        var response = new ExceptionResponse(HttpStatus.TOO_MANY_REQUESTS.value(), ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(response);
+    }
+
+    @org.springframework.web.bind.annotation.ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ExceptionResponse> handleServiceUnavailable(ServiceUnavailableException ex) {
+        var response = new ExceptionResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
     @org.springframework.web.bind.annotation.ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<ExceptionResponse> handleConstraintValidation(ConstraintViolationException ex) {
         var response = new ExceptionResponse(HttpStatus.BAD_REQUEST.value(), ex.getMessage());
@@ -56,6 +91,13 @@ public class ExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    // e.g. an enum request parameter given a value outside the enum
+    @org.springframework.web.bind.annotation.ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ExceptionResponse> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        var response = new ExceptionResponse(HttpStatus.BAD_REQUEST.value(), "Invalid value '" + ex.getValue() + "' for parameter " + ex.getName());
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
     @org.springframework.web.bind.annotation.ExceptionHandler(Exception.class)
     public ResponseEntity<ExceptionResponse> handleGenericException(Exception ex) {
         var response = new ExceptionResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(), ex.getMessage());
@@ -0,0 +1,136 @@
+package com.springtest.cookapi.api.configs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springtest.cookapi.infrastructure.cache.CacheTtlProperties;
+import com.springtest.cookapi.infrastructure.cache.CompactCacheSerializer;
+import com.springtest.cookapi.infrastructure.cache.DistributedLoadLock;
+import com.springtest.cookapi.infrastructure.cache.TwoLevelCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableConfigurationProperties({CacheProperties.class, CacheTtlProperties.class})
+public class CacheConfig {
+    @Value("${app.cache.l1.cache-names:recipe,recipe-version,all-recipes,review,all-reviews}")
+    private Set<String> localCacheNames;
+
+    @Value("${app.cache.l1.maximum-size:10000}")
+    private long localMaximumSize;
+
+    @Value("${app.cache.l1.expire-after-write:PT30S}")
+    private Duration localExpireAfterWrite;
+
+    @Value("${app.cache.invalidation-channel:cache-invalidation}")
+    private String invalidationChannel;
+
+    @Value("${app.cache.compression-threshold:1024}")
+    private int compressionThreshold;
+
+    @Value("${app.cache.early-refresh.beta:1.0}")
+    private double earlyRefreshBeta;
+
+    @Value("${app.cache.load-lock.enabled:true}")
+    private boolean loadLockEnabled;
+
+    @Value("${app.cache.load-lock.ttl:PT5S}")
+    private Duration loadLockTtl;
+
+    @Value("${app.cache.load-lock.wait:PT3S}")
+    private Duration loadLockWait;
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                             CacheProperties cacheProperties,
+                                             CacheTtlProperties cacheTtlProperties,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             ObjectMapper objectMapper,
+                                             ObjectProvider<MeterRegistry> meterRegistry,
+                                             ThreadPoolTaskExecutor cacheRefreshExecutor) {
+        RedisCacheConfiguration defaults = redisCacheConfiguration(cacheProperties.getRedis())
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        new CompactCacheSerializer(compressionThreshold)));
+
+        Map<String, RedisCacheConfiguration> perCache = new HashMap<>();
+        cacheTtlProperties.ttl().forEach((cacheName, ttl) -> perCache.put(cacheName, defaults.entryTtl(ttl)));
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaults)
+                .withInitialCacheConfigurations(perCache)
+                .build();
+        redisCacheManager.afterPropertiesSet();
+
+        return new TwoLevelCacheManager(
+                redisCacheManager,
+                localCacheNames,
+                localMaximumSize,
+                localExpireAfterWrite,
+                stringRedisTemplate,
+                objectMapper,
+                invalidationChannel,
+                meterRegistry.getIfAvailable(),
+                cacheName -> cacheTtlProperties.ttlOrDefault(cacheName, cacheProperties.getRedis().getTimeToLive()),
+                earlyRefreshBeta,
+                loadLockEnabled ? new DistributedLoadLock(stringRedisTemplate, loadLockTtl, loadLockWait) : null,
+                cacheRefreshExecutor
+        );
+    }
+
+    // Early refreshes are best effort: when all workers are busy, the entry is simply loaded on expiry
+    @Bean
+    public ThreadPoolTaskExecutor cacheRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(4);
+        executor.setKeepAliveSeconds(60);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        return executor;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(invalidationChannel));
+        return container;
+    }
+
+    // Mirrors the spring.cache.redis.* handling of Spring Boot's own Redis cache configuration; the value serializer is replaced by the caller
+    private RedisCacheConfiguration redisCacheConfiguration(CacheProperties.Redis redisProperties) {
+        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig(getClass().getClassLoader());
+        if (redisProperties.getTimeToLive() != null) {
+            config = config.entryTtl(redisProperties.getTimeToLive());
+        }
+        if (redisProperties.getKeyPrefix() != null) {
+            config = config.prefixCacheNameWith(redisProperties.getKeyPrefix());
+        }
+        if (!redisProperties.isCacheNullValues()) {
+            config = config.disableCachingNullValues();
+        }
+        if (!redisProperties.isUseKeyPrefix()) {
+            config = config.disableKeyPrefix();
+        }
+        return config;
+    }
+}
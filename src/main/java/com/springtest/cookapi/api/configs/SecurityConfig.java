@@ -1,8 +1,15 @@
 package com.springtest.cookapi.api.configs;
 
+import com.springtest.cookapi.infrastructure.security.BoundedPasswordEncoder;
 import com.springtest.cookapi.infrastructure.security.CustomUserDetailService;
 import com.springtest.cookapi.infrastructure.security.JwtAuthenticationFilter;
+import com.springtest.cookapi.infrastructure.security.PasswordHashingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -14,7 +21,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -22,15 +28,20 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
+
 @EnableWebSecurity
 @EnableMethodSecurity
 @RequiredArgsConstructor
 @Configuration
+@EnableConfigurationProperties(PasswordHashingProperties.class)
 public class SecurityConfig {
     private final CustomUserDetailService userDetailsService;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, CorsConfigurationSource corsConfigurationSource) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   CorsConfigurationSource corsConfigurationSource,
+                                                   AuthenticationProvider authenticationProvider) throws Exception {
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource))
                 .csrf(csrf -> csrf.disable())
@@ -41,6 +52,7 @@ public class SecurityConfig {
                                 "/v3/api-docs/**",
                                 "/api/auth/**"
                         ).permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/recipe/export").authenticated()
                         .requestMatchers(HttpMethod.GET, "/api/recipe").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/recipe/{id}").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/review/recipe/{id}").permitAll()
@@ -51,7 +63,7 @@ public class SecurityConfig {
                         session -> session
                                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 ).addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
-                .authenticationProvider(authenticationProvider()
+                .authenticationProvider(authenticationProvider
                         );
         return http.build();
     }
@@ -84,16 +96,29 @@ public class SecurityConfig {
         return source;
     }
 
+    // Hashing runs on its own bounded pool instead of the request threads; see BoundedPasswordEncoder
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.auth.hashing.threads:2}") int threads,
+                                           @Value("${app.auth.hashing.queue-capacity:50}") int queueCapacity,
+                                           @Value("${app.auth.hashing.timeout:PT5S}") Duration timeout,
+                                           PasswordHashingProperties passwordHashingProperties,
+                                           ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BoundedPasswordEncoder(
+                passwordHashingProperties.createEncoder(),
+                threads,
+                queueCapacity,
+                timeout,
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new)
+        );
     }
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
         daoAuthenticationProvider.setUserDetailsService(userDetailsService);
-        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder());
+        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+        // re-hashes outdated passwords with the current target algorithm and cost after a successful login
+        daoAuthenticationProvider.setUserDetailsPasswordService(userDetailsService);
         return daoAuthenticationProvider;
     }
 
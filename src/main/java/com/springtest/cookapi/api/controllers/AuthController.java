@@ -7,6 +7,7 @@ import com.springtest.cookapi.domain.requests.RegisterRequest;
 import com.springtest.cookapi.domain.responses.LoginResponse;
 import com.springtest.cookapi.infrastructure.security.AuthService;
 import com.springtest.cookapi.infrastructure.services.CurrentUserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -22,14 +23,14 @@ public class AuthController {
     private final CurrentUserService currentUserService;
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody @Valid RegisterRequest request) {
-        authService.registerUser(request);
+    public ResponseEntity<?> register(@RequestBody @Valid RegisterRequest request, HttpServletRequest httpRequest) {
+        authService.registerUser(request, httpRequest.getRemoteAddr());
         return ResponseEntity.ok(Map.of("message", "User registered successfully"));
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
-        LoginResponse loginResponse = authService.login(request);
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        LoginResponse loginResponse = authService.login(request, httpRequest.getRemoteAddr());
         return ResponseEntity.ok(loginResponse);
     }
 
@@ -39,6 +40,18 @@ public class AuthController {
         return ResponseEntity.ok(loginResponse);
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@Valid @RequestBody RefreshTokenRequest request) {
+        authService.logout(request);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/revoke-all")
+    public ResponseEntity<?> revokeAllSessions() {
+        authService.revokeAllSessions(currentUserService.getCurrentUserId());
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping()
     public ResponseEntity<?> getUser() {
         var user = currentUserService.getCurrentUserDto();
@@ -0,0 +1,53 @@
+package com.springtest.cookapi.api.controllers;
+
+import com.springtest.cookapi.domain.exceptions.BadRequestException;
+import com.springtest.cookapi.domain.exceptions.PreconditionFailedException;
+import org.springframework.http.ETag;
+
+import java.util.List;
+
+// Strong ETags derived from the entity @Version; the URL already identifies the resource, so the version alone is the tag
+final class ETags {
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return new ETag(String.valueOf(version), false).formattedTag();
+    }
+
+    // True when If-None-Match already names this version; it uses the weak comparison, so W/"3" still matches "3"
+    static boolean notModified(String ifNoneMatch, Long version) {
+        return notModified(ifNoneMatch, new ETag(String.valueOf(version), false));
+    }
+
+    static boolean notModified(String ifNoneMatch, String etag) {
+        return etag != null && notModified(ifNoneMatch, ETag.parse(etag).get(0));
+    }
+
+    private static boolean notModified(String ifNoneMatch, ETag current) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        return ETag.parse(ifNoneMatch).stream().anyMatch(tag -> tag.isWildcard() || tag.compare(current, false));
+    }
+
+    // Version the client expects for a conditional update, null when the update is unconditional (no header or "*").
+    // If-Match uses the strong comparison, so weak or foreign tags can never match
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        List<ETag> tags = ETag.parse(ifMatch);
+        if (tags.size() != 1) {
+            throw new BadRequestException("If-Match must contain exactly one entity tag");
+        }
+        var tag = tags.get(0);
+        if (tag.isWildcard()) {
+            return null;
+        }
+        if (tag.weak() || !tag.tag().matches("\\d{1,18}")) {
+            throw new PreconditionFailedException("Entity tag " + tag.formattedTag() + " does not match the current version");
+        }
+        return Long.valueOf(tag.tag());
+    }
+}
@@ -1,40 +1,128 @@
 package com.springtest.cookapi.api.controllers;
 
 import com.springtest.cookapi.domain.dtos.recipe.CreateRecipeDto;
+import com.springtest.cookapi.domain.dtos.recipe.RecipeCoverageDto;
 import com.springtest.cookapi.domain.dtos.recipe.RecipeDto;
 import com.springtest.cookapi.domain.dtos.recipe.UpdateRecipeDto;
+import com.springtest.cookapi.domain.enums.ExportFormat;
+import com.springtest.cookapi.domain.enums.PagingMode;
 import com.springtest.cookapi.domain.enums.SortBy;
 import com.springtest.cookapi.domain.enums.SortDirection;
+import com.springtest.cookapi.domain.requests.GetCookableRecipesRequest;
 import com.springtest.cookapi.domain.requests.GetRecipesRequest;
+import com.springtest.cookapi.domain.requests.ScrollRecipesRequest;
+import com.springtest.cookapi.domain.requests.SearchRecipesRequest;
+import com.springtest.cookapi.domain.responses.ImportResponse;
 import com.springtest.cookapi.domain.responses.PageResponse;
+import com.springtest.cookapi.infrastructure.cache.CacheKeys;
+import com.springtest.cookapi.infrastructure.cache.RenderedResponse;
+import com.springtest.cookapi.infrastructure.cache.ResponseBodyCache;
+import com.springtest.cookapi.infrastructure.services.recipe.IRecipeExportService;
+import com.springtest.cookapi.infrastructure.services.recipe.IRecipeImportService;
 import com.springtest.cookapi.infrastructure.services.recipe.IRecipeService;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/recipe")
 @RequiredArgsConstructor
 public class RecipeController {
     private final IRecipeService recipeService;
+    private final IRecipeImportService recipeImportService;
+    private final IRecipeExportService recipeExportService;
+    private final ResponseBodyCache responseBodyCache;
+    private final CacheKeys cacheKeys;
 
     @GetMapping
-    public ResponseEntity<PageResponse<RecipeDto>> getAllRecipes(@RequestParam SortBy sortBy, @RequestParam SortDirection sortDirection, @RequestParam @Min(1) @Max(50) Integer limit, @RequestParam @Min(0) Integer pageNumber) {
-        return ResponseEntity.ok(recipeService.getAllRecipes(new GetRecipesRequest(sortBy, sortDirection, limit, pageNumber)));
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ResponseSchemas.RecipePage.class)))
+    public void getAllRecipes(@RequestParam SortBy sortBy, @RequestParam SortDirection sortDirection, @RequestParam @Min(1) @Max(50) Integer limit, @RequestParam(defaultValue = "0") @Min(0) Integer pageNumber,
+                              @RequestParam(defaultValue = "OFFSET") PagingMode pagingMode, @RequestParam(required = false) String cursor,
+                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding, HttpServletResponse response) throws IOException {
+        RenderedResponse rendered;
+        if (pagingMode == PagingMode.KEYSET || cursor != null) {
+            var request = new ScrollRecipesRequest(sortBy, sortDirection, limit, cursor);
+            rendered = responseBodyCache.get("all-recipes", cacheKeys.keysetPage(request), () -> recipeService.scrollRecipes(request), page -> null);
+        } else {
+            var request = new GetRecipesRequest(sortBy, sortDirection, limit, pageNumber, pagingMode);
+            rendered = responseBodyCache.get("all-recipes", cacheKeys.recipePage(request), () -> recipeService.getAllRecipes(request), page -> null);
+        }
+        RenderedResponses.write(rendered, acceptEncoding, response);
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<PageResponse<RecipeDto>> searchRecipes(@RequestParam @NotBlank @Size(max = 200) String q, @RequestParam(defaultValue = "10") @Min(1) @Max(50) Integer limit, @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(recipeService.searchRecipes(new SearchRecipesRequest(q, limit, cursor)));
+    }
+
+    @GetMapping("/cookable")
+    public ResponseEntity<List<RecipeCoverageDto>> getCookableRecipes(@RequestParam @NotEmpty @Size(max = 100) List<String> products, @RequestParam(defaultValue = "10") @Min(1) @Max(50) Integer limit) {
+        return ResponseEntity.ok(recipeService.getCookableRecipes(new GetCookableRecipesRequest(products, limit)));
+    }
+
+    @GetMapping("/batch")
+    public ResponseEntity<List<RecipeDto>> getRecipesByIds(@RequestParam @NotEmpty @Size(max = 50) List<Long> ids) {
+        return ResponseEntity.ok(recipeService.getRecipesByIds(ids));
+    }
+
+    // Whole catalogue from one snapshot, written while it is read; gzip=true compresses on the fly
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportRecipes(@RequestParam(defaultValue = "NDJSON") ExportFormat format,
+                                                               @RequestParam(defaultValue = "false") boolean gzip) {
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                var gzipOut = new GZIPOutputStream(out, 64 * 1024);
+                recipeExportService.exportRecipes(format, gzipOut);
+                gzipOut.finish();
+            } else {
+                recipeExportService.exportRecipes(format, out);
+            }
+        };
+
+        String extension = format == ExportFormat.CSV ? "csv" : "ndjson";
+        var response = ResponseEntity.ok()
+                .contentType(format == ExportFormat.CSV ? MediaType.parseMediaType("text/csv") : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"recipes." + extension + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    // Polling clients are answered from the cached version alone; the DTO is only read when the version changed
     @GetMapping("/{id}")
-    public ResponseEntity<RecipeDto> getRecipeById(@PathVariable Long id) {
-        return ResponseEntity.ok(recipeService.getRecipeDtoById(id));
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json", schema = @Schema(implementation = RecipeDto.class)))
+    @ApiResponse(responseCode = "304", description = "Not Modified", content = @Content)
+    public void getRecipeById(@PathVariable Long id, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding, HttpServletResponse response) throws IOException {
+        var version = recipeService.getRecipeVersion(id).version();
+        if (ETags.notModified(ifNoneMatch, version)) {
+            RenderedResponses.notModified(ETags.of(version), response);
+            return;
+        }
+        var rendered = responseBodyCache.get("recipe", cacheKeys.recipe(id), () -> recipeService.getRecipeDtoById(id), recipe -> ETags.of(recipe.version()));
+        RenderedResponses.write(rendered, acceptEncoding, response);
     }
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -49,11 +137,18 @@ public class RecipeController {
         return ResponseEntity.created(location).body(addedRecipe);
     }
 
+    // NDJSON body, one CreateRecipeDto per line; read incrementally and written in JDBC batches
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<ImportResponse> importRecipes(InputStream body) throws IOException {
+        return ResponseEntity.ok(recipeImportService.importRecipes(body));
+    }
+
     @PutMapping(value = "/{id}", consumes =  MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<RecipeDto> updateRecipe(@PathVariable Long id, @Valid @RequestPart UpdateRecipeDto updateRecipeDto, @RequestPart(required = false) MultipartFile image) throws IOException {
+    public ResponseEntity<RecipeDto> updateRecipe(@PathVariable Long id, @Valid @RequestPart UpdateRecipeDto updateRecipeDto, @RequestPart(required = false) MultipartFile image,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws IOException {
 
-        var updatedRecipe = recipeService.updateRecipe(id, updateRecipeDto, image);
-        return ResponseEntity.ok(updatedRecipe);
+        var updatedRecipe = recipeService.updateRecipe(id, updateRecipeDto, image, ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updatedRecipe.version())).body(updatedRecipe);
     }
 
     @DeleteMapping("/{id}")
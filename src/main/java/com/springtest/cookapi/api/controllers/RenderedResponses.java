@@ -0,0 +1,82 @@
+package com.springtest.cookapi.api.controllers;
+
+import com.springtest.cookapi.infrastructure.cache.RenderedResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+
+// Writes pre-rendered bodies straight to the servlet response, bypassing the message converters
+final class RenderedResponses {
+    private RenderedResponses() {
+    }
+
+    static void write(RenderedResponse rendered, String acceptEncoding, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (rendered.etag() != null) {
+            response.setHeader(HttpHeaders.ETAG, rendered.etag());
+        }
+        byte[] body = rendered.body();
+        if (rendered.gzipBody() != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (acceptsGzip(acceptEncoding)) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                body = rendered.gzipBody();
+            }
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    static void notModified(String etag, HttpServletResponse response) {
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        response.setHeader(HttpHeaders.ETAG, etag);
+    }
+
+    // Scans "gzip, deflate;q=0.5, br" in place: true for a gzip coding whose quality is not zero
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        int length = acceptEncoding.length();
+        int start = 0;
+        while (start < length) {
+            int end = acceptEncoding.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            int nameStart = skipSpaces(acceptEncoding, start, end);
+            int nameEnd = nameStart;
+            while (nameEnd < end && acceptEncoding.charAt(nameEnd) != ';' && acceptEncoding.charAt(nameEnd) != ' ') {
+                nameEnd++;
+            }
+            if (nameEnd - nameStart == 4 && acceptEncoding.regionMatches(true, nameStart, "gzip", 0, 4)) {
+                return !hasZeroQuality(acceptEncoding, nameEnd, end);
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+    private static boolean hasZeroQuality(String value, int from, int to) {
+        int q = value.indexOf("q=", from);
+        if (q < 0 || q >= to) {
+            return false;
+        }
+        for (int i = q + 2; i < to; i++) {
+            char c = value.charAt(i);
+            if (c != '0' && c != '.' && c != ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipSpaces(String value, int from, int to) {
+        while (from < to && value.charAt(from) == ' ') {
+            from++;
+        }
+        return from;
+    }
+}
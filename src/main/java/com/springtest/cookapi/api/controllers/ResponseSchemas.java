@@ -0,0 +1,22 @@
+package com.springtest.cookapi.api.controllers;
+
+import com.springtest.cookapi.domain.dtos.recipe.RecipeDto;
+import com.springtest.cookapi.domain.dtos.review.ReviewDto;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+// OpenAPI shapes of the responses that are written as pre-rendered bytes and so have no return type for springdoc to read.
+// They mirror PageResponse and keep the schema names springdoc gives it elsewhere, e.g. on /api/recipe/search.
+final class ResponseSchemas {
+    private ResponseSchemas() {
+    }
+
+    @Schema(name = "PageResponseRecipeDto")
+    record RecipePage(List<RecipeDto> content, int page, int size, long totalElements, int totalPages, boolean hasNext, String nextCursor) {
+    }
+
+    @Schema(name = "PageResponseReviewDto")
+    record ReviewPage(List<ReviewDto> content, int page, int size, long totalElements, int totalPages, boolean hasNext, String nextCursor) {
+    }
+}
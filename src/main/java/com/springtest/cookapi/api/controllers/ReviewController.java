@@ -2,17 +2,26 @@ package com.springtest.cookapi.api.controllers;
 
 import com.springtest.cookapi.domain.dtos.review.CreateReviewDto;
 import com.springtest.cookapi.domain.dtos.review.ReviewDto;
+import com.springtest.cookapi.domain.enums.ReviewPagingMode;
 import com.springtest.cookapi.domain.enums.SortDirection;
 import com.springtest.cookapi.domain.requests.GetReviewsRequest;
-import com.springtest.cookapi.domain.responses.PageResponse;
+import com.springtest.cookapi.infrastructure.cache.CacheKeys;
+import com.springtest.cookapi.infrastructure.cache.ResponseBodyCache;
 import com.springtest.cookapi.infrastructure.services.review.IReviewService;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
 import java.net.URI;
 
 @RestController
@@ -20,6 +29,8 @@ import java.net.URI;
 @RequiredArgsConstructor
 public class ReviewController {
     private final IReviewService reviewService;
+    private final ResponseBodyCache responseBodyCache;
+    private final CacheKeys cacheKeys;
 
     @PostMapping("/recipe/{recipeId}")
     public ResponseEntity<ReviewDto> addReview(
@@ -37,13 +48,26 @@ public class ReviewController {
     }
 
     @GetMapping("/recipe/{recipeId}")
-    public ResponseEntity<PageResponse<ReviewDto>> getReviews(@PathVariable Long recipeId, @RequestParam SortDirection sortDirection, @RequestParam @Min(1) @Max(50) Integer limit, @RequestParam @Min(0) Integer pageNumber) {
-        return ResponseEntity.ok(reviewService.getReviews(recipeId, new GetReviewsRequest(sortDirection, limit, pageNumber)));
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ResponseSchemas.ReviewPage.class)))
+    public void getReviews(@PathVariable Long recipeId, @RequestParam SortDirection sortDirection, @RequestParam @Min(1) @Max(50) Integer limit, @RequestParam @Min(0) Integer pageNumber,
+                           @RequestParam(defaultValue = "OFFSET") ReviewPagingMode pagingMode,
+                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding, HttpServletResponse response) throws IOException {
+        var request = new GetReviewsRequest(sortDirection, limit, pageNumber, pagingMode);
+        var rendered = responseBodyCache.get("all-reviews", cacheKeys.reviews(recipeId, request), () -> reviewService.getReviews(recipeId, request), page -> null);
+        RenderedResponses.write(rendered, acceptEncoding, response);
     }
 
     @GetMapping("/{reviewId}")
-    public ResponseEntity<ReviewDto> getReviewById(@PathVariable Long reviewId) {
-        return ResponseEntity.ok(reviewService.getReviewById(reviewId));
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReviewDto.class)))
+    @ApiResponse(responseCode = "304", description = "Not Modified", content = @Content)
+    public void getReviewById(@PathVariable Long reviewId, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding, HttpServletResponse response) throws IOException {
+        var rendered = responseBodyCache.get("review", cacheKeys.review(reviewId), () -> reviewService.getReviewById(reviewId), review -> ETags.of(review.version()));
+        if (ETags.notModified(ifNoneMatch, rendered.etag())) {
+            RenderedResponses.notModified(rendered.etag(), response);
+            return;
+        }
+        RenderedResponses.write(rendered, acceptEncoding, response);
     }
 
     @DeleteMapping("/{reviewId}")
@@ -0,0 +1,11 @@
+package com.springtest.cookapi.domain.dtos.recipe;
+
+import java.io.Serializable;
+
+public record RecipeCoverageDto (
+        RecipeDto recipe,
+        Integer ownedProducts,
+        Integer missingProducts
+) implements Serializable {
+    private static final long serialVersionUID = 1L;
+}
@@ -15,7 +15,8 @@ public record RecipeDto (
     Double rating,
     String imageUrl,
     List<ProductDto> products,
-    UserDto author
+    UserDto author,
+    Long version
 ) implements Serializable{
     private static final long serialVersionUID = 1L;
 }
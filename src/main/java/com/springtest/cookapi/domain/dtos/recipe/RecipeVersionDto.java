@@ -0,0 +1,10 @@
+package com.springtest.cookapi.domain.dtos.recipe;
+
+import java.io.Serializable;
+
+public record RecipeVersionDto (
+        Long id,
+        Long version
+) implements Serializable {
+    private static final long serialVersionUID = 1L;
+}
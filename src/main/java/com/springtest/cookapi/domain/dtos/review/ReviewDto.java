@@ -10,7 +10,8 @@ public record ReviewDto (
         String reviewContent,
         Integer rating,
         UserDto author,
-        Long recipeId
+        Long recipeId,
+        Long version
 ) implements Serializable {
     private static final long serialVersionUID = 1L;
 }
@@ -0,0 +1,41 @@
+package com.springtest.cookapi.domain.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Outbox row for an image that has to be removed from the image host once the transaction that orphaned it commits.
+// nextAttemptAt is null once the worker gave up, which keeps the row around for inspection
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "image_deletion_outbox", indexes = @Index(name = "idx_image_deletion_next_attempt", columnList = "nextAttemptAt"))
+public class ImageDeletion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Long id;
+
+    @Column(nullable = false)
+    private String publicId;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column
+    private Instant nextAttemptAt;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    public static ImageDeletion of(String publicId) {
+        var now = Instant.now();
+        return new ImageDeletion(null, publicId, 0, now, now, null);
+    }
+}
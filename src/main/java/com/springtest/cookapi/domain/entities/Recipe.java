@@ -5,6 +5,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.validator.constraints.Length;
 
 import java.util.List;
@@ -13,9 +14,16 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_recipe_name_id", columnList = "name, id"),
+        @Index(name = "idx_recipe_calories_id", columnList = "calories, id"),
+        @Index(name = "idx_recipe_difficulty_id", columnList = "difficulty, id")
+})
 public class Recipe {
+    // RecipeImportServiceImpl allocates ids from the same sequence in blocks of allocationSize
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recipe_seq")
+    @SequenceGenerator(name = "recipe_seq", sequenceName = "recipe_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -32,9 +40,18 @@ public class Recipe {
     @Column(nullable = false)
     private Double calories;
 
-    @Column
+    // Rating aggregates are maintained only by RecipeRepository's atomic addRating/removeRating updates, never by entity saves
+    @Column(updatable = false)
     private Double rating;
 
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private Long ratingSum = 0L;
+
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private Integer ratingCount = 0;
+
     @Column
     private String imageUrl;
 
@@ -47,6 +64,7 @@ public class Recipe {
             joinColumns = @JoinColumn(name = "recipe_id"),
             inverseJoinColumns = @JoinColumn(name = "product_id")
     )
+    @OrderBy("id")
     private List<Product> productList;
 
     @OneToMany(mappedBy = "recipe", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -55,4 +73,17 @@ public class Recipe {
     @ManyToOne()
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
+
+    // Also bumped by the rating updates in RecipeRepository, since the rating is part of the representation
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
+    public Recipe(Long id, String name, String description, Difficulty difficulty, Double calories, Double rating,
+                  Long ratingSum, Integer ratingCount, String imageUrl, String publicId, List<Product> productList,
+                  List<Review> reviewList, User user) {
+        this(id, name, description, difficulty, calories, rating, ratingSum, ratingCount, imageUrl, publicId,
+                productList, reviewList, user, null);
+    }
 }
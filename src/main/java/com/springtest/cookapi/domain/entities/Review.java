@@ -6,12 +6,16 @@ import jakarta.validation.constraints.Min;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = Review.USER_RECIPE_CONSTRAINT, columnNames = {"user_id", "recipe_id"}))
 public class Review {
+    public static final String USER_RECIPE_CONSTRAINT = "ux_review_user_recipe";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
@@ -34,4 +38,13 @@ public class Review {
     @ManyToOne()
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
+
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
+    public Review(Long id, String title, String reviewContent, Integer rating, Recipe recipe, User user) {
+        this(id, title, reviewContent, rating, recipe, user, null);
+    }
 }
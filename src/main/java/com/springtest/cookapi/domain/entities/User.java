@@ -16,7 +16,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "app_user")
+@Table(name = "app_user", uniqueConstraints = @UniqueConstraint(name = "ux_app_user_username", columnNames = "username"))
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE)
@@ -0,0 +1,6 @@
+package com.springtest.cookapi.domain.enums;
+
+public enum ExportFormat {
+    NDJSON,
+    CSV
+}
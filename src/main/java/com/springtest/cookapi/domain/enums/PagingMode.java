@@ -0,0 +1,8 @@
+package com.springtest.cookapi.domain.enums;
+
+public enum PagingMode {
+    OFFSET,
+    // offset pages without totals: one extra row is fetched to tell whether a next page exists
+    SLICE,
+    KEYSET
+}
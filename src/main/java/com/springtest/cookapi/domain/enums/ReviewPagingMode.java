@@ -0,0 +1,8 @@
+package com.springtest.cookapi.domain.enums;
+
+// PagingMode without KEYSET, which reviews do not support
+public enum ReviewPagingMode {
+    OFFSET,
+    // offset pages without totals: one extra row is fetched to tell whether a next page exists
+    SLICE
+}
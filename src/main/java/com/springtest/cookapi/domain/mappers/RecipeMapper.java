@@ -1,19 +1,28 @@
 package com.springtest.cookapi.domain.mappers;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springtest.cookapi.domain.dtos.product.ProductDto;
 import com.springtest.cookapi.domain.dtos.recipe.CreateRecipeDto;
 import com.springtest.cookapi.domain.dtos.recipe.RecipeDto;
+import com.springtest.cookapi.domain.dtos.user.UserDto;
 import com.springtest.cookapi.domain.entities.Recipe;
+import com.springtest.cookapi.infrastructure.repositories.RecipeRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 public class RecipeMapper {
+    private static final TypeReference<List<ProductDto>> PRODUCT_LIST = new TypeReference<>() {};
 
     private final ProductMapper productMapper;
     private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
     public Recipe toRecipe(CreateRecipeDto dto) {
         return new Recipe(
                 null,
@@ -22,6 +31,8 @@ public class RecipeMapper {
                 dto.difficulty(),
                 dto.calories(),
                 null,
+                0L,
+                0,
                 null,
                 null,
                 dto.products().stream().map(productMapper::toEntity).toList(),
@@ -40,7 +51,30 @@ public class RecipeMapper {
                 recipe.getRating(),
                 recipe.getImageUrl(),
                 recipe.getProductList().stream().map(productMapper::toDto).toList(),
-                userMapper.toUserDto(recipe.getUser())
+                userMapper.toUserDto(recipe.getUser()),
+                recipe.getVersion()
+        );
+    }
+
+    // Projection counterpart of toRecipeDto(Recipe); products arrive as a JSON array aggregated in SQL
+    public RecipeDto toRecipeDto(RecipeRepository.RecipeRow row) {
+        List<ProductDto> products;
+        try {
+            products = objectMapper.readValue(row.getProducts(), PRODUCT_LIST);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Malformed products of recipe " + row.getId(), e);
+        }
+        return new RecipeDto(
+                row.getId(),
+                row.getName(),
+                row.getDescription(),
+                row.getDifficulty(),
+                row.getCalories(),
+                row.getRating(),
+                row.getImageUrl(),
+                products,
+                new UserDto(row.getAuthorId(), row.getAuthorFullname(), row.getAuthorUsername()),
+                row.getVersion()
         );
     }
 }
@@ -17,7 +17,8 @@ public class ReviewMapper {
                 review.getReviewContent(),
                 review.getRating(),
                 userMapper.toUserDto(review.getUser()),
-                review.getRecipe().getId()
+                review.getRecipe().getId(),
+                review.getVersion()
         );
     }
 
@@ -0,0 +1,17 @@
+package com.springtest.cookapi.domain.requests;
+
+import java.util.List;
+
+public record GetCookableRecipesRequest (
+        List<String> products,
+        Integer limit
+) {
+    public GetCookableRecipesRequest {
+        if (products == null) {
+            products = List.of();
+        }
+        if (limit == null) {
+            limit = 10;
+        }
+    }
+}
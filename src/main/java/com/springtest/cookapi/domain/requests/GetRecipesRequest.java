@@ -1,5 +1,6 @@
 package com.springtest.cookapi.domain.requests;
 
+import com.springtest.cookapi.domain.enums.PagingMode;
 import com.springtest.cookapi.domain.enums.SortBy;
 import com.springtest.cookapi.domain.enums.SortDirection;
 
@@ -7,7 +8,8 @@ public record GetRecipesRequest (
     SortBy sortBy,
     SortDirection sortDirection,
     Integer pageNumber,
-    Integer limit
+    Integer limit,
+    PagingMode pagingMode
 ){
     public GetRecipesRequest {
         if (sortBy == null) {
@@ -22,10 +24,22 @@ public record GetRecipesRequest (
         if (limit == null) {
             limit = 10;
         }
+        if (pagingMode == null) {
+            pagingMode = PagingMode.OFFSET;
+        }
+    }
+
+    public GetRecipesRequest(SortBy sortBy, SortDirection sortDirection, Integer pageNumber, Integer limit) {
+        this(sortBy, sortDirection, pageNumber, limit, PagingMode.OFFSET);
+    }
+
+    public boolean isSlice() {
+        return pagingMode == PagingMode.SLICE;
     }
 
     public String toString()
     {
-        return sortBy.toString() + " " + sortDirection.toString() + " " + pageNumber + " " + limit;
+        String key = sortBy.toString() + " " + sortDirection.toString() + " " + pageNumber + " " + limit;
+        return isSlice() ? key + " " + pagingMode : key;
     }
 }
@@ -1,5 +1,6 @@
 package com.springtest.cookapi.domain.requests;
 
+import com.springtest.cookapi.domain.enums.ReviewPagingMode;
 import com.springtest.cookapi.domain.enums.SortDirection;
 
 import java.io.Serializable;
@@ -7,7 +8,8 @@ import java.io.Serializable;
 public record GetReviewsRequest (
         SortDirection sortDirection,
         Integer pageNumber,
-        Integer limit
+        Integer limit,
+        ReviewPagingMode pagingMode
 ) implements Serializable {
     public GetReviewsRequest {
         if (sortDirection == null) {
@@ -19,9 +21,21 @@ public record GetReviewsRequest (
         if (limit == null) {
             limit = 10;
         }
+        if (pagingMode == null) {
+            pagingMode = ReviewPagingMode.OFFSET;
+        }
+    }
+
+    public GetReviewsRequest(SortDirection sortDirection, Integer pageNumber, Integer limit) {
+        this(sortDirection, pageNumber, limit, ReviewPagingMode.OFFSET);
+    }
+
+    public boolean isSlice() {
+        return pagingMode == ReviewPagingMode.SLICE;
     }
 
     public String toString() {
-        return sortDirection.toString() + " " + pageNumber + " " + limit;
+        String key = sortDirection.toString() + " " + pageNumber + " " + limit;
+        return isSlice() ? key + " " + pagingMode : key;
     }
 }
\ No newline at end of file
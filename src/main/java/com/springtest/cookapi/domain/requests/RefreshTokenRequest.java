@@ -2,9 +2,11 @@ package com.springtest.cookapi.domain.requests;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
 @AllArgsConstructor
+@NoArgsConstructor
 public class RefreshTokenRequest {
     private String refreshToken;
 }
@@ -0,0 +1,30 @@
+package com.springtest.cookapi.domain.requests;
+
+import com.springtest.cookapi.domain.enums.SortBy;
+import com.springtest.cookapi.domain.enums.SortDirection;
+
+public record ScrollRecipesRequest (
+        SortBy sortBy,
+        SortDirection sortDirection,
+        Integer limit,
+        String cursor
+) {
+    public ScrollRecipesRequest {
+        if (sortBy == null) {
+            sortBy = SortBy.NAME;
+        }
+        if (sortDirection == null) {
+            sortDirection = SortDirection.ASC;
+        }
+        if (limit == null) {
+            limit = 10;
+        }
+        if (cursor != null && cursor.isBlank()) {
+            cursor = null;
+        }
+    }
+
+    public String toString() {
+        return sortBy.toString() + " " + sortDirection.toString() + " " + limit + " " + cursor;
+    }
+}
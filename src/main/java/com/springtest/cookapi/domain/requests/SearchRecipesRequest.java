@@ -0,0 +1,23 @@
+package com.springtest.cookapi.domain.requests;
+
+import java.util.Locale;
+
+public record SearchRecipesRequest (
+        String query,
+        Integer limit,
+        String cursor
+) {
+    public SearchRecipesRequest {
+        query = query == null ? "" : query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        if (limit == null) {
+            limit = 10;
+        }
+        if (cursor != null && cursor.isBlank()) {
+            cursor = null;
+        }
+    }
+
+    public String toString() {
+        return query + " " + limit + " " + cursor;
+    }
+}
@@ -0,0 +1,14 @@
+package com.springtest.cookapi.domain.responses;
+
+import java.util.List;
+
+// errors holds at most the first few failed lines; failed counts all of them
+public record ImportResponse(
+        long imported,
+        long failed,
+        List<LineError> errors,
+        long durationMillis,
+        double recipesPerSecond
+) {
+    public record LineError(long line, String message) {}
+}
@@ -1,6 +1,8 @@
 package com.springtest.cookapi.domain.responses;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.io.Serializable;
 import java.util.List;
@@ -11,7 +13,8 @@ public record PageResponse<T>(
         int size,
         long totalElements,
         int totalPages,
-        boolean hasNext
+        boolean hasNext,
+        @JsonInclude(JsonInclude.Include.NON_NULL) String nextCursor
 ) implements Serializable {
     public static <T> PageResponse<T> of(Page<T> page) {
         return new PageResponse<>(
@@ -20,7 +23,35 @@ public record PageResponse<T>(
                 page.getSize(),
                 page.getTotalElements(),
                 page.getTotalPages(),
-                page.hasNext()
+                page.hasNext(),
+                null
         );
     }
+
+    // Totals are unknown in slice mode and reported as -1
+    public static <T> PageResponse<T> ofSlice(Slice<T> slice) {
+        return new PageResponse<>(slice.getContent(), slice.getNumber(), slice.getSize(), -1, -1, slice.hasNext(), null);
+    }
+
+    // estimatedTotal may be stale or approximate; it is corrected where the slice proves it wrong (e.g. on the last page)
+    public static <T> PageResponse<T> of(Slice<T> slice, long estimatedTotal) {
+        long seen = slice.getPageable().getOffset() + slice.getNumberOfElements();
+        long totalElements;
+        if (slice.hasNext()) {
+            totalElements = Math.max(estimatedTotal, seen + 1);
+        } else if (slice.hasContent() || slice.isFirst()) {
+            totalElements = seen;
+        } else {
+            // past the end: only known to be at most the offset
+            totalElements = Math.min(estimatedTotal, seen);
+        }
+        int size = slice.getSize();
+        int totalPages = size == 0 ? 1 : (int) Math.ceil((double) totalElements / size);
+        return new PageResponse<>(slice.getContent(), slice.getNumber(), size, totalElements, totalPages, slice.hasNext(), null);
+    }
+
+    // Keyset pages have no page number or totals, both reported as -1; nextCursor continues after the last row
+    public static <T> PageResponse<T> ofCursor(List<T> content, int size, boolean hasNext, String nextCursor) {
+        return new PageResponse<>(content, -1, size, -1, -1, hasNext, hasNext ? nextCursor : null);
+    }
 }
@@ -0,0 +1,5 @@
+package com.springtest.cookapi.infrastructure.cache;
+
+// Value stored by TwoLevelCache together with how long it took to compute and when it expires,
+// which is what probabilistic early refresh needs. computeMillis is 0 for plain puts, which are never refreshed early.
+public record CacheEnvelope(Object value, long computeMillis, long expiresAt) {}
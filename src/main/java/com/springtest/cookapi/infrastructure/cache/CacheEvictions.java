@@ -0,0 +1,34 @@
+package com.springtest.cookapi.infrastructure.cache;
+
+import com.springtest.cookapi.infrastructure.services.AfterCommit;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+// Evictions of entries a transaction makes stale, run once it commits. @CacheEvict runs inside the transaction,
+// so a read between the eviction and the commit would load the old rows and cache them again.
+@Component
+public class CacheEvictions {
+    private final CacheManager cacheManager;
+
+    public CacheEvictions(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public void evictAfterCommit(String cacheName, Object key) {
+        AfterCommit.run(() -> {
+            var cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.evict(key);
+            }
+        });
+    }
+
+    public void clearAfterCommit(String cacheName) {
+        AfterCommit.run(() -> {
+            var cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        });
+    }
+}
@@ -0,0 +1,4 @@
+package com.springtest.cookapi.infrastructure.cache;
+
+// Pub/sub message telling other nodes to drop an L1 entry, or the whole L1 cache when key is null
+public record CacheInvalidation(String nodeId, String cacheName, String key) {}
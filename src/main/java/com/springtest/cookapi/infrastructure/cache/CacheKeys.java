@@ -0,0 +1,37 @@
+package com.springtest.cookapi.infrastructure.cache;
+
+import com.springtest.cookapi.domain.requests.GetRecipesRequest;
+import com.springtest.cookapi.domain.requests.GetReviewsRequest;
+import com.springtest.cookapi.domain.requests.ScrollRecipesRequest;
+import com.springtest.cookapi.domain.requests.SearchRecipesRequest;
+import org.springframework.stereotype.Component;
+
+// Keys of the service caches, used by the @Cacheable annotations as @keys and by code that reads, fills or evicts
+// those entries directly, such as the rendered response bodies kept alongside them
+@Component("keys")
+public class CacheKeys {
+
+    public String recipe(Long recipeId) {
+        return "recipe_" + recipeId;
+    }
+
+    public String recipePage(GetRecipesRequest request) {
+        return request.toString();
+    }
+
+    public String keysetPage(ScrollRecipesRequest request) {
+        return "keyset " + request;
+    }
+
+    public String search(SearchRecipesRequest request) {
+        return request.toString();
+    }
+
+    public String reviews(Long recipeId, GetReviewsRequest request) {
+        return "reviews" + recipeId + " " + request;
+    }
+
+    public String review(Long reviewId) {
+        return "review" + reviewId;
+    }
+}
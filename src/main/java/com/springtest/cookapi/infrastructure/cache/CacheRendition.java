@@ -0,0 +1,4 @@
+package com.springtest.cookapi.infrastructure.cache;
+
+// Per-node derivative of an L1 entry (e.g. its serialized response body), valid only while source is the current entry
+public record CacheRendition(CacheEnvelope source, Object value) {}
@@ -0,0 +1,20 @@
+package com.springtest.cookapi.infrastructure.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+
+// Per-cache Redis TTLs (app.cache.ttl.<cache-name>); caches not listed use spring.cache.redis.time-to-live
+@ConfigurationProperties("app.cache")
+public record CacheTtlProperties(Map<String, Duration> ttl) {
+    public CacheTtlProperties {
+        if (ttl == null) {
+            ttl = Map.of();
+        }
+    }
+
+    public Duration ttlOrDefault(String cacheName, Duration defaultTtl) {
+        return ttl.getOrDefault(cacheName, defaultTtl);
+    }
+}
@@ -0,0 +1,123 @@
+package com.springtest.cookapi.infrastructure.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.springtest.cookapi.domain.dtos.product.ProductDto;
+import com.springtest.cookapi.domain.dtos.recipe.RecipeDto;
+import com.springtest.cookapi.domain.dtos.recipe.RecipeVersionDto;
+import com.springtest.cookapi.domain.dtos.review.ReviewDto;
+import com.springtest.cookapi.domain.dtos.user.UserDto;
+import com.springtest.cookapi.domain.responses.PageResponse;
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Redis cache values as Jackson Smile (binary JSON) with class names as type info, LZ4-compressed above a size threshold.
+// Unknown properties are ignored and missing ones default to null, so cached entries survive DTO changes.
+// Each payload starts with a format byte; anything unreadable (e.g. entries written by the old JDK serializer)
+// is treated as a cache miss instead of failing the request.
+@Slf4j
+public class CompactCacheSerializer implements RedisSerializer<Object> {
+    private static final byte SMILE = 1;
+    private static final byte SMILE_LZ4 = 2;
+    // Exact classes a type id may name: the cached DTOs and the lists their content arrives in
+    // (ArrayList, List.of/Stream.toList, and the unmodifiable view Spring Data pages hand out)
+    private static final Set<String> CACHED_TYPES = Stream.concat(
+            Stream.of(CacheEnvelope.class, PageResponse.class, RecipeDto.class,
+                    RecipeVersionDto.class, ReviewDto.class, UserDto.class, ProductDto.class, ArrayList.class).map(Class::getName),
+            Stream.of("java.util.ImmutableCollections$ListN", "java.util.ImmutableCollections$List12",
+                    "java.util.Collections$UnmodifiableRandomAccessList", "java.util.Collections$EmptyList")
+    ).collect(Collectors.toUnmodifiableSet());
+
+    private final ObjectMapper objectMapper;
+    private final int compressionThreshold;
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    // compressionThreshold <= 0 disables compression
+    public CompactCacheSerializer(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+        var typeValidator = new PolymorphicTypeValidator.Base() {
+            @Override
+            public Validity validateSubClassName(MapperConfig<?> config, JavaType baseType, String subClassName) {
+                return CACHED_TYPES.contains(subClassName) ? Validity.ALLOWED : Validity.DENIED;
+            }
+        };
+        // NON_FINAL alone would skip our DTO records (records are final); EVERYTHING would also wrap every Long
+        var typeResolver = new ObjectMapper.DefaultTypeResolverBuilder(ObjectMapper.DefaultTyping.NON_FINAL, typeValidator) {
+            @Override
+            public boolean useForType(JavaType type) {
+                return type.getRawClass().getName().startsWith("com.springtest.cookapi.") || super.useForType(type);
+            }
+        }.init(JsonTypeInfo.Id.CLASS, null).inclusion(JsonTypeInfo.As.PROPERTY);
+
+        this.objectMapper = SmileMapper.builder()
+                .findAndAddModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .setDefaultTyping(typeResolver)
+                .build();
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+
+        byte[] smile;
+        try {
+            smile = objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write cache value of type " + value.getClass().getName(), e);
+        }
+
+        if (compressionThreshold <= 0 || smile.length < compressionThreshold) {
+            return ByteBuffer.allocate(1 + smile.length).put(SMILE).put(smile).array();
+        }
+
+        byte[] compressed = new byte[compressor.maxCompressedLength(smile.length)];
+        int compressedLength = compressor.compress(smile, 0, smile.length, compressed, 0);
+        return ByteBuffer.allocate(1 + Integer.BYTES + compressedLength)
+                .put(SMILE_LZ4)
+                .putInt(smile.length)
+                .put(compressed, 0, compressedLength)
+                .array();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        try {
+            return switch (bytes[0]) {
+                case SMILE -> objectMapper.readValue(bytes, 1, bytes.length - 1, Object.class);
+                case SMILE_LZ4 -> {
+                    int length = ByteBuffer.wrap(bytes, 1, Integer.BYTES).getInt();
+                    byte[] smile = decompressor.decompress(bytes, 1 + Integer.BYTES, length);
+                    yield objectMapper.readValue(smile, Object.class);
+                }
+                default -> null;
+            };
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable cache value", e);
+            return null;
+        }
+    }
+}
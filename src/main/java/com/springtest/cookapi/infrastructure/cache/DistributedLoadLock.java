@@ -0,0 +1,71 @@
+package com.springtest.cookapi.infrastructure.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+// Short-lived Redis lock (SET NX PX) that lets one node recompute a missing cache entry while the others wait for it.
+// Fails open: if Redis cannot be asked, the caller loads as if it held the lock.
+@Slf4j
+public class DistributedLoadLock {
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class
+    );
+    private static final String UNLOCKED = "";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration lockTtl;
+    private final Duration waitTimeout;
+
+    public DistributedLoadLock(StringRedisTemplate redisTemplate, Duration lockTtl, Duration waitTimeout) {
+        this.redisTemplate = redisTemplate;
+        this.lockTtl = lockTtl;
+        this.waitTimeout = waitTimeout;
+    }
+
+    // Returns a token to release the lock with, or null if another node holds it
+    public String tryAcquire(String name) {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(lockKey(name), token, lockTtl);
+            return Boolean.TRUE.equals(acquired) ? token : null;
+        } catch (RuntimeException e) {
+            log.warn("Could not acquire cache load lock {}, loading without it", name, e);
+            return UNLOCKED;
+        }
+    }
+
+    public void release(String name, String token) {
+        if (token == null || token.equals(UNLOCKED)) {
+            return;
+        }
+        try {
+            redisTemplate.execute(RELEASE, List.of(lockKey(name)), token);
+        } catch (RuntimeException e) {
+            // the lock expires on its own
+            log.warn("Could not release cache load lock {}", name, e);
+        }
+    }
+
+    public boolean isHeld(String name) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(lockKey(name)));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    public Duration getWaitTimeout() {
+        return waitTimeout;
+    }
+
+    private static String lockKey(String name) {
+        return "cache-load-lock::" + name;
+    }
+}
@@ -0,0 +1,68 @@
+package com.springtest.cookapi.infrastructure.cache;
+
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Multi-key access to the entries of one RedisCache: a single MGET for reads and one pipeline of SETs for writes,
+// using the cache's own key prefix, value serializer and TTL so entries are interchangeable with RedisCache.get/put.
+public class RedisBatchAccess {
+    private final StringRedisTemplate redisTemplate;
+    private final String name;
+    private final RedisCacheConfiguration configuration;
+
+    public RedisBatchAccess(StringRedisTemplate redisTemplate, RedisCache redisCache) {
+        this.redisTemplate = redisTemplate;
+        this.name = redisCache.getName();
+        this.configuration = redisCache.getCacheConfiguration();
+    }
+
+    // Values in key order, null for missing or unreadable entries
+    public List<Object> getAll(List<String> keys) {
+        byte[][] redisKeys = keys.stream().map(this::redisKey).toArray(byte[][]::new);
+        List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.stringCommands().mGet(redisKeys));
+
+        List<Object> result = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] value = values != null ? values.get(i) : null;
+            result.add(value != null ? configuration.getValueSerializationPair().read(ByteBuffer.wrap(value)) : null);
+        }
+        return result;
+    }
+
+    public void putAll(Map<String, Object> values) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            values.forEach((key, value) -> {
+                Duration ttl = configuration.getTtlFunction().getTimeToLive(key, value);
+                Expiration expiration = ttl == null || ttl.isZero() || ttl.isNegative()
+                        ? Expiration.persistent()
+                        : Expiration.from(ttl);
+                connection.stringCommands().set(redisKey(key), serialize(value), expiration, RedisStringCommands.SetOption.upsert());
+            });
+            return null;
+        });
+    }
+
+    private byte[] redisKey(String key) {
+        String prefixed = configuration.usePrefix() ? configuration.getKeyPrefixFor(name) + key : key;
+        return prefixed.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] serialize(Object value) {
+        ByteBuffer buffer = configuration.getValueSerializationPair().write(value);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,4 @@
+package com.springtest.cookapi.infrastructure.cache;
+
+// Final JSON body of a cached value; gzipBody is null when the body is too small to be worth compressing
+public record RenderedResponse(byte[] body, byte[] gzipBody, String etag) {}
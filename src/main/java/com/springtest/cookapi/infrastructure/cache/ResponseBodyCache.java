@@ -0,0 +1,67 @@
+package com.springtest.cookapi.infrastructure.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+// Final response bodies of hot reads, kept as renditions of the service cache entries they were rendered from.
+// A hit hands out the stored UTF-8 JSON (and its gzip variant) without deserializing or re-serializing anything;
+// a miss goes through the service's own cache, renders the value once and attaches the bytes to that L1 entry.
+@Component
+public class ResponseBodyCache {
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final int gzipMinSize;
+
+    public ResponseBodyCache(CacheManager cacheManager,
+                             ObjectMapper objectMapper,
+                             @Value("${app.response-cache.gzip-min-size:1024}") int gzipMinSize) {
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        this.gzipMinSize = gzipMinSize;
+    }
+
+    // key must be the key the loader's @Cacheable uses, otherwise nothing is kept; etag may return null
+    public <T> RenderedResponse get(String cacheName, String key, Supplier<T> loader, Function<? super T, String> etag) {
+        var cache = cacheManager.getCache(cacheName) instanceof TwoLevelCache twoLevelCache ? twoLevelCache : null;
+        if (cache != null && cache.getRendition(key) instanceof RenderedResponse rendered) {
+            return rendered;
+        }
+
+        T value = loader.get();
+        var rendered = render(value, etag.apply(value));
+        if (cache != null) {
+            cache.putRendition(key, value, rendered);
+        }
+        return rendered;
+    }
+
+    private RenderedResponse render(Object value, String etag) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not render cached " + value.getClass().getSimpleName(), e);
+        }
+        return new RenderedResponse(body, body.length >= gzipMinSize ? gzip(body) : null, etag);
+    }
+
+    private static byte[] gzip(byte[] body) {
+        var buffer = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (var gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,478 @@
+package com.springtest.cookapi.infrastructure.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+// Cache with a per-node Caffeine L1 in front of a shared Redis L2.
+// Writes and evictions go to Redis first; evictions are then broadcast so other nodes drop their L1 copies.
+//
+// get(key, loader), used by @Cacheable(sync = true), additionally protects against stampedes:
+// concurrent misses on one node share a single load, nodes coordinate through a DistributedLoadLock,
+// and entries are recomputed in the background shortly before they expire (XFetch: the probability
+// grows as expiry nears and with how long the value took to compute).
+//
+// getAll/putAll serve multi-key reads: L1 first, then one MGET (or pipelined SETs) through RedisBatchAccess.
+//
+// Renditions are per-node values derived from an L1 entry, such as its rendered response body. Each one remembers the
+// envelope it was made from and is only returned while that envelope is still the L1 entry, so evictions, reloads and
+// remote invalidations discard it without any bookkeeping of their own.
+@Slf4j
+public class TwoLevelCache implements Cache {
+    private final String name;
+    private final Cache redisCache;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> localCache;
+    private final BiConsumer<String, String> invalidationPublisher;
+    private final Duration ttl;
+    private final double earlyRefreshBeta;
+    private final DistributedLoadLock loadLock;
+    private final Executor refreshExecutor;
+    private final RedisBatchAccess batchAccess;
+    private final com.github.benmanes.caffeine.cache.Cache<String, CacheRendition> renditionCache;
+    private final ConcurrentMap<String, CompletableFuture<CacheEnvelope>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder localMisses = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+    private final LongAdder renditionHits = new LongAdder();
+    private final LongAdder renditionMisses = new LongAdder();
+
+    // ttl is the L2 entry TTL (null or zero disables early refresh, as does a beta of 0);
+    // loadLock and batchAccess may be null, the latter makes getAll/putAll fall back to one L2 call per key;
+    // a null renditionCache disables renditions
+    public TwoLevelCache(String name,
+                         Cache redisCache,
+                         com.github.benmanes.caffeine.cache.Cache<String, Object> localCache,
+                         BiConsumer<String, String> invalidationPublisher,
+                         Duration ttl,
+                         double earlyRefreshBeta,
+                         DistributedLoadLock loadLock,
+                         Executor refreshExecutor,
+                         RedisBatchAccess batchAccess,
+                         com.github.benmanes.caffeine.cache.Cache<String, CacheRendition> renditionCache) {
+        this.name = name;
+        this.redisCache = redisCache;
+        this.localCache = localCache;
+        this.invalidationPublisher = invalidationPublisher;
+        this.ttl = ttl;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.loadLock = loadLock;
+        this.refreshExecutor = refreshExecutor;
+        this.batchAccess = batchAccess;
+        this.renditionCache = renditionCache;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        CacheEnvelope envelope = lookup(localKey(key), key);
+        return envelope != null ? new SimpleValueWrapper(envelope.value()) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        CacheEnvelope envelope = lookup(localKey, key);
+        if (envelope == null) {
+            envelope = loadOnce(key, localKey, valueLoader);
+        } else if (shouldRefreshEarly(envelope) && !inFlight.containsKey(localKey)) {
+            earlyRefreshes.increment();
+            refreshExecutor.execute(() -> refresh(key, localKey, valueLoader));
+        }
+        return envelope != null ? (T) envelope.value() : null;
+    }
+
+    // Values of the keys present in either level; keys are compared by their string form, like get(key)
+    public Map<String, Object> getAll(Collection<?> keys) {
+        Map<String, Object> found = new LinkedHashMap<>();
+        List<String> redisKeys = new ArrayList<>();
+        for (Object key : keys) {
+            String localKey = localKey(key);
+            CacheEnvelope envelope = unwrap(localCache.getIfPresent(localKey));
+            if (envelope != null) {
+                localHits.increment();
+                found.put(localKey, envelope.value());
+            } else {
+                localMisses.increment();
+                redisKeys.add(localKey);
+            }
+        }
+        if (redisKeys.isEmpty()) {
+            return found;
+        }
+
+        List<Object> stored = batchAccess != null
+                ? batchAccess.getAll(redisKeys)
+                : redisKeys.stream().map(redisCache::get).map(wrapper -> wrapper != null ? wrapper.get() : null).toList();
+        for (int i = 0; i < redisKeys.size(); i++) {
+            CacheEnvelope envelope = unwrap(stored.get(i));
+            if (envelope == null || envelope.value() == null) {
+                redisMisses.increment();
+                continue;
+            }
+            redisHits.increment();
+            localCache.put(redisKeys.get(i), envelope);
+            found.put(redisKeys.get(i), envelope.value());
+        }
+        return found;
+    }
+
+    public void putAll(Map<?, ?> values) {
+        Map<String, Object> envelopes = new LinkedHashMap<>();
+        values.forEach((key, value) -> {
+            if (value != null) {
+                envelopes.put(localKey(key), envelope(value, 0));
+            }
+        });
+        if (batchAccess != null) {
+            batchAccess.putAll(envelopes);
+        } else {
+            envelopes.forEach(redisCache::put);
+        }
+        localCache.putAll(envelopes);
+    }
+
+    // Rendition of the current L1 entry of key, or null when there is none or the entry changed since it was rendered
+    public Object getRendition(Object key) {
+        if (renditionCache == null) {
+            return null;
+        }
+        String localKey = localKey(key);
+        CacheRendition rendition = renditionCache.getIfPresent(localKey);
+        if (rendition != null && rendition.source() == localCache.getIfPresent(localKey)) {
+            renditionHits.increment();
+            return rendition.value();
+        }
+        renditionMisses.increment();
+        return null;
+    }
+
+    // Ignored unless value is still the current L1 entry of key, so a rendition of an evicted value is never stored
+    public void putRendition(Object key, Object value, Object rendition) {
+        if (renditionCache == null) {
+            return;
+        }
+        String localKey = localKey(key);
+        if (localCache.getIfPresent(localKey) instanceof CacheEnvelope envelope && envelope.value() == value) {
+            renditionCache.put(localKey, new CacheRendition(envelope, rendition));
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        store(key, value, 0);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = redisCache.putIfAbsent(key, envelope(value, 0));
+        CacheEnvelope current = existing != null ? unwrap(existing.get()) : envelope(value, 0);
+        if (current != null && current.value() != null) {
+            localCache.put(localKey(key), current);
+        }
+        return existing != null ? new SimpleValueWrapper(current != null ? current.value() : null) : null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(key);
+        evictLocal(localKey(key));
+        invalidationPublisher.accept(name, localKey(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = redisCache.evictIfPresent(key);
+        evictLocal(localKey(key));
+        invalidationPublisher.accept(name, localKey(key));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        clearLocal();
+        invalidationPublisher.accept(name, null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = redisCache.invalidate();
+        clearLocal();
+        invalidationPublisher.accept(name, null);
+        return invalidated;
+    }
+
+    public void evictLocal(String key) {
+        localCache.invalidate(key);
+        if (renditionCache != null) {
+            renditionCache.invalidate(key);
+        }
+    }
+
+    public void clearLocal() {
+        localCache.invalidateAll();
+        if (renditionCache != null) {
+            renditionCache.invalidateAll();
+        }
+    }
+
+    public long getLocalHits() {
+        return localHits.sum();
+    }
+
+    public long getLocalMisses() {
+        return localMisses.sum();
+    }
+
+    public long getRedisHits() {
+        return redisHits.sum();
+    }
+
+    public long getRedisMisses() {
+        return redisMisses.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getCoalescedLoads() {
+        return coalescedLoads.sum();
+    }
+
+    public long getEarlyRefreshes() {
+        return earlyRefreshes.sum();
+    }
+
+    public long getRenditionHits() {
+        return renditionHits.sum();
+    }
+
+    public long getRenditionMisses() {
+        return renditionMisses.sum();
+    }
+
+    public double getLocalHitRatio() {
+        return ratio(localHits.sum(), localMisses.sum());
+    }
+
+    public double getRedisHitRatio() {
+        return ratio(redisHits.sum(), redisMisses.sum());
+    }
+
+    public long getLocalSize() {
+        return localCache.estimatedSize();
+    }
+
+    private CacheEnvelope lookup(String localKey, Object key) {
+        CacheEnvelope envelope = unwrap(localCache.getIfPresent(localKey));
+        if (envelope != null) {
+            localHits.increment();
+            return envelope;
+        }
+        localMisses.increment();
+
+        ValueWrapper wrapper = redisCache.get(key);
+        envelope = wrapper != null ? unwrap(wrapper.get()) : null;
+        if (envelope == null) {
+            redisMisses.increment();
+            return null;
+        }
+        redisHits.increment();
+        if (envelope.value() != null) {
+            localCache.put(localKey, envelope);
+        }
+        return envelope;
+    }
+
+    // Only one thread per key and node runs the loader; the others wait for its result
+    private CacheEnvelope loadOnce(Object key, String localKey, Callable<?> valueLoader) {
+        CompletableFuture<CacheEnvelope> flight = new CompletableFuture<>();
+        CompletableFuture<CacheEnvelope> existing = inFlight.putIfAbsent(localKey, flight);
+        if (existing != null) {
+            coalescedLoads.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtimeException ? runtimeException : e;
+            }
+        }
+
+        try {
+            // a flight that finished between our miss and putIfAbsent has already stored the value
+            CacheEnvelope envelope = unwrap(localCache.getIfPresent(localKey));
+            if (envelope == null) {
+                envelope = loadAcrossNodes(key, localKey, valueLoader);
+            }
+            flight.complete(envelope);
+            return envelope;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(localKey, flight);
+        }
+    }
+
+    private CacheEnvelope loadAcrossNodes(Object key, String localKey, Callable<?> valueLoader) {
+        String lockName = name + "::" + localKey;
+        String token = loadLock != null ? loadLock.tryAcquire(lockName) : null;
+        if (loadLock != null && token == null) {
+            CacheEnvelope loadedElsewhere = awaitRemoteLoad(key, lockName);
+            if (loadedElsewhere != null) {
+                return loadedElsewhere;
+            }
+        }
+        try {
+            return load(key, valueLoader);
+        } finally {
+            if (loadLock != null) {
+                loadLock.release(lockName, token);
+            }
+        }
+    }
+
+    private CacheEnvelope awaitRemoteLoad(Object key, String lockName) {
+        long deadline = System.nanoTime() + loadLock.getWaitTimeout().toNanos();
+        while (System.nanoTime() < deadline) {
+            ValueWrapper wrapper = redisCache.get(key);
+            CacheEnvelope envelope = wrapper != null ? unwrap(wrapper.get()) : null;
+            if (envelope != null) {
+                return envelope;
+            }
+            if (!loadLock.isHeld(lockName)) {
+                // the other node gave up or failed without storing a value
+                return null;
+            }
+            try {
+                Thread.sleep(25);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private void refresh(Object key, String localKey, Callable<?> valueLoader) {
+        CompletableFuture<CacheEnvelope> flight = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(localKey, flight) != null) {
+            return;
+        }
+        String lockName = name + "::" + localKey;
+        String token = loadLock != null ? loadLock.tryAcquire(lockName) : null;
+        try {
+            if (loadLock == null || token != null) {
+                flight.complete(load(key, valueLoader));
+            } else {
+                // another node is already refreshing this entry
+                flight.complete(null);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Early refresh of {}::{} failed", name, localKey, e);
+            flight.completeExceptionally(e);
+        } finally {
+            inFlight.remove(localKey, flight);
+            if (loadLock != null) {
+                loadLock.release(lockName, token);
+            }
+        }
+    }
+
+    private CacheEnvelope load(Object key, Callable<?> valueLoader) {
+        loads.increment();
+        long start = System.nanoTime();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        long computeMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        return store(key, value, computeMillis);
+    }
+
+    private CacheEnvelope store(Object key, Object value, long computeMillis) {
+        if (value == null) {
+            localCache.invalidate(localKey(key));
+            return new CacheEnvelope(null, computeMillis, Long.MAX_VALUE);
+        }
+        CacheEnvelope envelope = envelope(value, computeMillis);
+        redisCache.put(key, envelope);
+        localCache.put(localKey(key), envelope);
+        return envelope;
+    }
+
+    private CacheEnvelope envelope(Object value, long computeMillis) {
+        long expiresAt = ttl == null || ttl.isZero() ? Long.MAX_VALUE : System.currentTimeMillis() + ttl.toMillis();
+        return new CacheEnvelope(value, computeMillis, expiresAt);
+    }
+
+    private boolean shouldRefreshEarly(CacheEnvelope envelope) {
+        if (earlyRefreshBeta <= 0 || envelope.computeMillis() <= 0 || envelope.expiresAt() == Long.MAX_VALUE) {
+            return false;
+        }
+        double gap = -envelope.computeMillis() * earlyRefreshBeta * Math.log(ThreadLocalRandom.current().nextDouble());
+        return System.currentTimeMillis() + gap >= envelope.expiresAt();
+    }
+
+    // Entries written before values were wrapped are treated as plain values that are never refreshed early
+    private static CacheEnvelope unwrap(Object stored) {
+        if (stored == null || stored instanceof CacheEnvelope) {
+            return (CacheEnvelope) stored;
+        }
+        return new CacheEnvelope(stored, 0, Long.MAX_VALUE);
+    }
+
+    // RedisCache converts keys to strings as well, so L1 and L2 agree on key identity
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,186 @@
+package com.springtest.cookapi.infrastructure.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+// Wraps the Redis cache manager; caches listed in localCacheNames get a Caffeine L1 in front of Redis.
+// L1 evictions are broadcast on a Redis channel and applied by every other node's manager.
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+    private final CacheManager redisCacheManager;
+    private final Set<String> localCacheNames;
+    private final long localMaximumSize;
+    private final Duration localExpireAfterWrite;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String channel;
+    private final MeterRegistry meterRegistry;
+    private final Function<String, Duration> ttlResolver;
+    private final double earlyRefreshBeta;
+    private final DistributedLoadLock loadLock;
+    private final Executor refreshExecutor;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager redisCacheManager,
+                                Set<String> localCacheNames,
+                                long localMaximumSize,
+                                Duration localExpireAfterWrite,
+                                StringRedisTemplate redisTemplate,
+                                ObjectMapper objectMapper,
+                                String channel,
+                                MeterRegistry meterRegistry,
+                                Function<String, Duration> ttlResolver,
+                                double earlyRefreshBeta,
+                                DistributedLoadLock loadLock,
+                                Executor refreshExecutor) {
+        this.redisCacheManager = redisCacheManager;
+        this.localCacheNames = Set.copyOf(localCacheNames);
+        this.localMaximumSize = localMaximumSize;
+        this.localExpireAfterWrite = localExpireAfterWrite;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+        this.meterRegistry = meterRegistry;
+        this.ttlResolver = ttlResolver;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.loadLock = loadLock;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidation invalidation;
+        try {
+            invalidation = objectMapper.readValue(message.getBody(), CacheInvalidation.class);
+        } catch (IOException e) {
+            log.warn("Ignoring malformed cache invalidation message", e);
+            return;
+        }
+        if (nodeId.equals(invalidation.nodeId())) {
+            return;
+        }
+        if (caches.get(invalidation.cacheName()) instanceof TwoLevelCache cache) {
+            if (invalidation.key() == null) {
+                cache.clearLocal();
+            } else {
+                cache.evictLocal(invalidation.key());
+            }
+        }
+    }
+
+    // Drops every L1 entry on this node only; Redis and other nodes are left untouched
+    public void clearLocalCaches() {
+        caches.values().stream()
+                .filter(TwoLevelCache.class::isInstance)
+                .map(TwoLevelCache.class::cast)
+                .forEach(TwoLevelCache::clearLocal);
+    }
+
+    private Cache createCache(String name) {
+        Cache redisCache = redisCacheManager.getCache(name);
+        if (redisCache == null || !localCacheNames.contains(name)) {
+            return redisCache;
+        }
+
+        // a short L1 TTL bounds staleness when an invalidation message is lost or races a concurrent L2 read
+        com.github.benmanes.caffeine.cache.Cache<String, Object> localCache = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localExpireAfterWrite)
+                .build();
+        TwoLevelCache cache = new TwoLevelCache(
+                name,
+                redisCache,
+                localCache,
+                this::publishInvalidation,
+                ttlResolver.apply(name),
+                earlyRefreshBeta,
+                loadLock,
+                refreshExecutor,
+                redisCache instanceof RedisCache nativeRedisCache ? new RedisBatchAccess(redisTemplate, nativeRedisCache) : null,
+                Caffeine.newBuilder()
+                        .maximumSize(localMaximumSize)
+                        .expireAfterWrite(localExpireAfterWrite)
+                        .build()
+        );
+        if (meterRegistry != null) {
+            bindMetrics(cache);
+        }
+        return cache;
+    }
+
+    private void publishInvalidation(String cacheName, String key) {
+        try {
+            String message = objectMapper.writeValueAsString(new CacheInvalidation(nodeId, cacheName, key));
+            redisTemplate.convertAndSend(channel, message);
+        } catch (JsonProcessingException | RuntimeException e) {
+            // other nodes fall back to L1 expiry
+            log.warn("Failed to publish cache invalidation for {}::{}", cacheName, key, e);
+        }
+    }
+
+    private void bindMetrics(TwoLevelCache cache) {
+        counter(cache, "l1", "hit", TwoLevelCache::getLocalHits);
+        counter(cache, "l1", "miss", TwoLevelCache::getLocalMisses);
+        counter(cache, "l2", "hit", TwoLevelCache::getRedisHits);
+        counter(cache, "l2", "miss", TwoLevelCache::getRedisMisses);
+        counter(cache, "rendition", "hit", TwoLevelCache::getRenditionHits);
+        counter(cache, "rendition", "miss", TwoLevelCache::getRenditionMisses);
+        FunctionCounter.builder("cache.loads", cache, TwoLevelCache::getLoads)
+                .tags("cache", cache.getName(), "type", "load")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.loads", cache, TwoLevelCache::getCoalescedLoads)
+                .tags("cache", cache.getName(), "type", "coalesced")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.loads", cache, TwoLevelCache::getEarlyRefreshes)
+                .tags("cache", cache.getName(), "type", "early-refresh")
+                .register(meterRegistry);
+        Gauge.builder("cache.level.hit.ratio", cache, TwoLevelCache::getLocalHitRatio)
+                .tags("cache", cache.getName(), "level", "l1")
+                .register(meterRegistry);
+        Gauge.builder("cache.level.hit.ratio", cache, TwoLevelCache::getRedisHitRatio)
+                .tags("cache", cache.getName(), "level", "l2")
+                .register(meterRegistry);
+        Gauge.builder("cache.level.size", cache, TwoLevelCache::getLocalSize)
+                .tags("cache", cache.getName(), "level", "l1")
+                .register(meterRegistry);
+    }
+
+    private void counter(TwoLevelCache cache, String level, String result, ToDoubleFunction<TwoLevelCache> count) {
+        FunctionCounter.builder("cache.level.gets", cache, count)
+                .tags("cache", cache.getName(), "level", level, "result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,49 @@
+package com.springtest.cookapi.infrastructure.repositories;
+
+import com.springtest.cookapi.domain.entities.ImageDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface ImageDeletionRepository extends JpaRepository<ImageDeletion, Long> {
+    // Due rows not locked by another worker; SKIP LOCKED lets several nodes drain the outbox side by side
+    @Query(nativeQuery = true, value = """
+            SELECT * FROM image_deletion_outbox
+            WHERE next_attempt_at <= :now
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """)
+    List<ImageDeletion> lockDue(@Param("now") Instant now, @Param("limit") int limit);
+
+    // The lease a worker claimed the rows with; a row whose lease ran out and was claimed again by another worker
+    // no longer matches, so the late worker leaves it alone
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            DELETE FROM image_deletion_outbox
+            WHERE id IN (:ids) AND next_attempt_at = :leaseUntil
+            """)
+    int deleteClaimed(@Param("ids") Collection<Long> ids, @Param("leaseUntil") Instant leaseUntil);
+
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            UPDATE image_deletion_outbox
+            SET next_attempt_at = :nextAttemptAt, last_error = :lastError
+            WHERE id = :id AND next_attempt_at = :leaseUntil
+            """)
+    int rescheduleClaimed(@Param("id") Long id, @Param("leaseUntil") Instant leaseUntil,
+                          @Param("nextAttemptAt") Instant nextAttemptAt, @Param("lastError") String lastError);
+
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            UPDATE image_deletion_outbox
+            SET next_attempt_at = NULL, last_error = :lastError
+            WHERE id = :id AND next_attempt_at = :leaseUntil
+            """)
+    int abandonClaimed(@Param("id") Long id, @Param("leaseUntil") Instant leaseUntil, @Param("lastError") String lastError);
+}
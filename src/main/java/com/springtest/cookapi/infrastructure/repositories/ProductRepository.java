@@ -2,8 +2,22 @@ package com.springtest.cookapi.infrastructure.repositories;
 
 import com.springtest.cookapi.domain.entities.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    @Query("SELECT p FROM Product p WHERE lower(p.name) IN :names")
+    List<Product> findByNormalizedNameIn(@Param("names") Collection<String> normalizedNames);
 
+    @Query(nativeQuery = true, value = """
+            INSERT INTO product (id, name)
+            SELECT nextval('product_seq'), name FROM unnest(cast(:names AS text[])) AS name
+            ON CONFLICT (lower(name)) DO NOTHING
+            RETURNING id, name
+            """)
+    List<Product> insertMissing(@Param("names") String[] names);
 }
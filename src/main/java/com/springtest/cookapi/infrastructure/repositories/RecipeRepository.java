@@ -1,8 +1,152 @@
 package com.springtest.cookapi.infrastructure.repositories;
 
 import com.springtest.cookapi.domain.entities.Recipe;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface RecipeRepository extends JpaRepository<Recipe,Long> {
+    Window<Recipe> findBy(ScrollPosition scrollPosition, Sort sort, Limit limit);
+
+    // First phase of a page read: only ids, so the page query never joins the collections.
+    // A slice fetches one extra id instead of counting; totals come from TableRowCounter
+    @Query("select r.id from Recipe r")
+    Slice<Long> findSliceOfIds(Pageable pageable);
+
+    // Second phase: recipes with products and authors in a single statement (order is not preserved)
+    @EntityGraph(attributePaths = {"productList", "user"})
+    @Query("select distinct r from Recipe r where r.id in :ids")
+    List<Recipe> findWithProductsAndUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"productList", "user"})
+    Optional<Recipe> findWithProductsAndUserById(Long id);
+
+    @Query("select r.version from Recipe r where r.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Read-only listing path: rows go straight into DTOs, products arrive as one json_agg array per recipe
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query(nativeQuery = true, value = """
+            SELECT r.id AS "id", r.name AS "name", r.description AS "description", r.difficulty AS "difficulty",
+                   r.calories AS "calories", r.rating AS "rating", r.image_url AS "imageUrl",
+                   u.id AS "authorId", u.full_name AS "authorFullname", u.username AS "authorUsername",
+                   cast(coalesce((SELECT json_agg(json_build_object('id', p.id, 'name', p.name) ORDER BY p.id)
+                                  FROM recipe_products rp
+                                  JOIN product p ON p.id = rp.product_id
+                                  WHERE rp.recipe_id = r.id), '[]') AS text) AS "products",
+                   r.version AS "version"
+            FROM recipe r
+            JOIN app_user u ON u.id = r.user_id
+            WHERE r.id IN (:ids)
+            """)
+    List<RecipeRow> findRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(nativeQuery = true, value = """
+            SELECT r.id AS id, ts_rank(r.search_vector, query) AS rank
+            FROM recipe r, websearch_to_tsquery('english', :query) query
+            WHERE r.search_vector @@ query
+            ORDER BY rank DESC, r.id
+            LIMIT :limit
+            """)
+    List<SearchHit> search(@Param("query") String query, @Param("limit") int limit);
+
+    @Query(nativeQuery = true, value = """
+            SELECT r.id AS id, ts_rank(r.search_vector, query) AS rank
+            FROM recipe r, websearch_to_tsquery('english', :query) query
+            WHERE r.search_vector @@ query
+              AND (ts_rank(r.search_vector, query) < :rank
+                   OR (ts_rank(r.search_vector, query) = :rank AND r.id > :id))
+            ORDER BY rank DESC, r.id
+            LIMIT :limit
+            """)
+    List<SearchHit> searchAfter(@Param("query") String query, @Param("rank") Float rank, @Param("id") Long id, @Param("limit") int limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(nativeQuery = true, value = """
+            UPDATE recipe
+            SET rating_sum = rating_sum + :rating,
+                rating_count = rating_count + 1,
+                rating = cast(rating_sum + :rating AS double precision) / (rating_count + 1),
+                version = version + 1
+            WHERE id = :id
+            """)
+    int addRating(@Param("id") Long id, @Param("rating") int rating);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(nativeQuery = true, value = """
+            UPDATE recipe
+            SET rating_sum = rating_sum - :rating,
+                rating_count = rating_count - 1,
+                rating = CASE WHEN rating_count > 1
+                              THEN cast(rating_sum - :rating AS double precision) / (rating_count - 1)
+                         END,
+                version = version + 1
+            WHERE id = :id AND rating_count > 0
+            """)
+    int removeRating(@Param("id") Long id, @Param("rating") int rating);
+
+    @Query(nativeQuery = true, value = """
+            SELECT id FROM recipe
+            WHERE id > :afterId
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE
+            """)
+    List<Long> lockIdsAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            UPDATE recipe r
+            SET rating_sum = a.rating_sum, rating_count = a.rating_count, rating = a.rating, version = r.version + 1
+            FROM (
+                SELECT rc.id,
+                       coalesce(sum(rv.rating), 0) AS rating_sum,
+                       count(rv.id) AS rating_count,
+                       cast(avg(rv.rating) AS double precision) AS rating
+                FROM recipe rc
+                LEFT JOIN review rv ON rv.recipe_id = rc.id
+                WHERE rc.id BETWEEN :fromId AND :toId
+                GROUP BY rc.id
+            ) a
+            WHERE r.id = a.id
+              AND (r.rating_sum, r.rating_count, r.rating) IS DISTINCT FROM (a.rating_sum, a.rating_count, a.rating)
+            """)
+    int recomputeRatings(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    interface RecipeRow {
+        Long getId();
+        String getName();
+        String getDescription();
+        String getDifficulty();
+        Double getCalories();
+        Double getRating();
+        String getImageUrl();
+        Long getAuthorId();
+        String getAuthorFullname();
+        String getAuthorUsername();
+        String getProducts();
+        Long getVersion();
+    }
 
+    interface SearchHit {
+        Long getId();
+        Float getRank();
+    }
 }
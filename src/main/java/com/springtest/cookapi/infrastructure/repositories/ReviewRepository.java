@@ -2,13 +2,12 @@ package com.springtest.cookapi.infrastructure.repositories;
 
 import com.springtest.cookapi.domain.entities.Recipe;
 import com.springtest.cookapi.domain.entities.Review;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-import java.util.List;
-
 public interface ReviewRepository extends JpaRepository<Review,Long> {
-    Page<Review> findByRecipe(Recipe recipe, PageRequest pageRequest);
-    List<Review> findByRecipe(Recipe recipe);
+    // no count query; the total is the recipe's ratingCount
+    Slice<Review> findSliceByRecipe(Recipe recipe, Pageable pageable);
+    boolean existsByUserIdAndRecipeId(Long userId, Long recipeId);
 }
@@ -0,0 +1,89 @@
+package com.springtest.cookapi.infrastructure.security;
+
+import com.springtest.cookapi.domain.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+// Token buckets kept in Redis so the limits hold across nodes. Each bucket is a hash refilled lazily
+// from Redis' own clock on every request. If Redis is unavailable requests are let through.
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AuthRateLimiter {
+    private static final String KEY_PREFIX = "rate-limit::auth:";
+    // returns 0 when a token was taken, otherwise the milliseconds until one is available
+    private static final RedisScript<Long> TAKE_TOKEN = new DefaultRedisScript<>("""
+            local capacity = tonumber(ARGV[1])
+            local refill_per_ms = tonumber(ARGV[2])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(bucket[1]) or capacity
+            local ts = tonumber(bucket[2]) or now
+            tokens = math.min(capacity, tokens + math.max(0, now - ts) * refill_per_ms)
+            local retry_after = 0
+            if tokens >= 1 then
+                tokens = tokens - 1
+            else
+                retry_after = math.ceil((1 - tokens) / refill_per_ms)
+            end
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now)
+            redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / refill_per_ms))
+            return retry_after
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.auth.rate-limit.enabled:true}")
+    private boolean enabled;
+    @Value("${app.auth.rate-limit.ip.capacity:20}")
+    private int ipCapacity;
+    @Value("${app.auth.rate-limit.ip.refill-period:PT3S}")
+    private Duration ipRefillPeriod;
+    @Value("${app.auth.rate-limit.username.capacity:5}")
+    private int usernameCapacity;
+    @Value("${app.auth.rate-limit.username.refill-period:PT12S}")
+    private Duration usernameRefillPeriod;
+
+    public void checkClient(String clientIp) {
+        take("ip", clientIp, ipCapacity, ipRefillPeriod);
+    }
+
+    public void checkUsername(String username) {
+        take("username", username.toLowerCase(Locale.ROOT), usernameCapacity, usernameRefillPeriod);
+    }
+
+    private void take(String scope, String id, int capacity, Duration refillPeriod) {
+        if (!enabled || id == null) {
+            return;
+        }
+        long retryAfterMs;
+        try {
+            Long result = redisTemplate.execute(
+                    TAKE_TOKEN,
+                    List.of(KEY_PREFIX + scope + ":" + id),
+                    String.valueOf(capacity),
+                    String.valueOf(1.0 / refillPeriod.toMillis())
+            );
+            retryAfterMs = result != null ? result : 0;
+        } catch (RuntimeException e) {
+            log.warn("Could not check {} rate limit, allowing request", scope, e);
+            return;
+        }
+        if (retryAfterMs > 0) {
+            meterRegistry.counter("auth.rate.limited", "scope", scope).increment();
+            throw new TooManyRequestsException("Too many attempts, please retry later", Duration.ofMillis(retryAfterMs));
+        }
+    }
+}
@@ -4,24 +4,29 @@ import com.springtest.cookapi.domain.dtos.user.UserDto;
 import com.springtest.cookapi.domain.entities.User;
 import com.springtest.cookapi.domain.enums.Role;
 import com.springtest.cookapi.domain.exceptions.BadRequestException;
+import com.springtest.cookapi.domain.exceptions.ServiceUnavailableException;
+import com.springtest.cookapi.domain.exceptions.UnauthorizedException;
 import com.springtest.cookapi.domain.requests.LoginRequest;
 import com.springtest.cookapi.domain.requests.RefreshTokenRequest;
 import com.springtest.cookapi.domain.requests.RegisterRequest;
 import com.springtest.cookapi.domain.responses.LoginResponse;
 import com.springtest.cookapi.infrastructure.repositories.UserRepository;
+import io.jsonwebtoken.JwtException;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.Date;
+import java.util.UUID;
 
 @Service
 @Slf4j
@@ -33,9 +38,15 @@ public class AuthService {
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final AuthRateLimiter authRateLimiter;
+    private final RefreshTokenStore refreshTokenStore;
+    private final TokenRevocationService tokenRevocationService;
+
+    private static final String INVALID_REFRESH_TOKEN_MESSAGE = "Invalid refresh token";
 
     @Transactional
-    public void registerUser(RegisterRequest request) {
+    public void registerUser(RegisterRequest request, String clientIp) {
+        authRateLimiter.checkClient(clientIp);
         if (userRepository.existsByUsername(request.getUsername())) {
             throw new IllegalArgumentException("Username is already in use");
         }
@@ -47,56 +58,97 @@ public class AuthService {
                 .role(Role.USER)
                 .build();
 
-        userRepository.save(user);
+        try {
+            // the unique username index catches registrations racing past the exists check
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Username is already in use");
+        }
     }
 
-    public LoginResponse login(LoginRequest loginRequest) {
+    public LoginResponse login(LoginRequest loginRequest, String clientIp) {
+        authRateLimiter.checkClient(clientIp);
+        authRateLimiter.checkUsername(loginRequest.getUsername());
+        Authentication authentication;
         try {
-            Authentication authentication = authenticationManager.authenticate(
+            authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             loginRequest.getUsername(),
                             loginRequest.getPassword()
                     )
             );
-
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-
-            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-            Long userId = userDetails.getUserId();
-
-
-            LoginResponse loginResponse = jwtService.generateTokenPair(authentication, userId);
-            return loginResponse;
+        } catch (ServiceUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             throw new BadRequestException("Invalid username or password");
         }
 
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        Long userId = userDetails.getUserId();
+
+        String sessionId = UUID.randomUUID().toString();
+        String refreshTokenId = UUID.randomUUID().toString();
+        LoginResponse loginResponse = jwtService.generateTokenPair(authentication, userId, sessionId, refreshTokenId);
+        refreshTokenStore.register(userId, sessionId, refreshTokenId, loginResponse.refreshTokenExpiration().toInstant());
+        return loginResponse;
     }
 
+    // Each refresh token can be used once; it is rotated for a new one within the same session
     public LoginResponse refreshToken(RefreshTokenRequest refreshTokenRequest) {
+        JwtClaims claims = parseRefreshToken(refreshTokenRequest.getRefreshToken());
 
-        String refreshToken = refreshTokenRequest.getRefreshToken();
-
-        if (!jwtService.isValidRefreshToken(refreshToken)) {
-            throw new IllegalArgumentException("Invalid refresh token");
+        UserDetails userDetails;
+        try {
+            userDetails = userDetailsService.loadUserByUsername(claims.subject());
+        } catch (UsernameNotFoundException e) {
+            throw new UnauthorizedException("User not found");
         }
 
-        String user = jwtService.extractUsernameFromToken(refreshToken);
-        Long userId = jwtService.extractUserIdFromToken(refreshToken);
-        UserDetails userDetails = userDetailsService.loadUserByUsername(user);
+        UsernamePasswordAuthenticationToken auth =  new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
 
-        if (userDetails == null) {
-            throw new IllegalArgumentException("User not found");
+        Long userId = claims.userId();
+        String newRefreshTokenId = UUID.randomUUID().toString();
+        LoginResponse tokens = jwtService.generateTokenPair(auth, userId, claims.sessionId(), newRefreshTokenId);
+
+        var result = refreshTokenStore.rotate(userId, claims.sessionId(), claims.tokenId(),
+                newRefreshTokenId, tokens.refreshTokenExpiration().toInstant());
+        switch (result) {
+            case REUSED -> {
+                log.warn("Refresh token reuse detected for user {}, session revoked", userId);
+                throw new UnauthorizedException("Refresh token was already used, please log in again");
+            }
+            case UNKNOWN -> throw new UnauthorizedException(INVALID_REFRESH_TOKEN_MESSAGE);
+            default -> {
+                return tokens;
+            }
         }
+    }
 
-        UsernamePasswordAuthenticationToken auth =  new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-
-        String accessToken = jwtService.generateAccessToken(auth, userId);
-        String newRefreshToken = jwtService.generateRefreshToken(auth, userId);
+    public void logout(RefreshTokenRequest refreshTokenRequest) {
+        JwtClaims claims = parseRefreshToken(refreshTokenRequest.getRefreshToken());
+        refreshTokenStore.revokeSession(claims.userId(), claims.sessionId());
+    }
 
-        Date expirationDate = jwtService.extractExpirationDateFromToken(accessToken);
-        Date refreshExpirationDate = jwtService.extractExpirationDateFromToken(newRefreshToken);
+    // Ends every session of the user, including their access tokens
+    public void revokeAllSessions(Long userId) {
+        refreshTokenStore.revokeAllSessions(userId);
+        // access tokens issued without a session id are only covered when app.jwt.revocation-check is enabled
+        tokenRevocationService.revokeAll(userId);
+    }
 
-        return new LoginResponse(userId, accessToken, refreshToken, expirationDate, refreshExpirationDate);
+    private JwtClaims parseRefreshToken(String refreshToken) {
+        JwtClaims claims;
+        try {
+            claims = jwtService.parseClaims(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new UnauthorizedException(INVALID_REFRESH_TOKEN_MESSAGE);
+        }
+        // refresh tokens issued before rotation carry no session and cannot be used anymore
+        if (!claims.isRefreshToken() || claims.sessionId() == null || claims.tokenId() == null || claims.userId() == null) {
+            throw new UnauthorizedException(INVALID_REFRESH_TOKEN_MESSAGE);
+        }
+        return claims;
     }
 }
\ No newline at end of file
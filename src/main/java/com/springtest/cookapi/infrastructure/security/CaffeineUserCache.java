@@ -0,0 +1,97 @@
+package com.springtest.cookapi.infrastructure.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springtest.cookapi.infrastructure.cache.CacheInvalidation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.UUID;
+
+// In-process cache of loaded users. Evictions (password or role changes) are broadcast on the cache
+// invalidation channel so every node drops its copy; the TTL bounds staleness if a message is lost.
+@Component
+@Slf4j
+public class CaffeineUserCache implements UserCache, MessageListener {
+    static final String CACHE_NAME = "user-details";
+
+    private final Cache<String, UserDetails> cache;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String channel;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CaffeineUserCache(@Value("${app.auth.user-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${app.auth.user-cache.expire-after-write:PT5M}") Duration expireAfterWrite,
+                             @Value("${app.cache.invalidation-channel:cache-invalidation}") String channel,
+                             StringRedisTemplate redisTemplate,
+                             ObjectMapper objectMapper,
+                             RedisMessageListenerContainer listenerContainer,
+                             MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        return cache.getIfPresent(username);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        cache.put(user.getUsername(), user);
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        cache.invalidate(username);
+        try {
+            String message = objectMapper.writeValueAsString(new CacheInvalidation(nodeId, CACHE_NAME, username));
+            redisTemplate.convertAndSend(channel, message);
+        } catch (JsonProcessingException | RuntimeException e) {
+            // other nodes fall back to the TTL
+            log.warn("Failed to publish user cache invalidation for {}", username, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidation invalidation;
+        try {
+            invalidation = objectMapper.readValue(message.getBody(), CacheInvalidation.class);
+        } catch (IOException e) {
+            log.warn("Ignoring malformed cache invalidation message", e);
+            return;
+        }
+        if (nodeId.equals(invalidation.nodeId()) || !CACHE_NAME.equals(invalidation.cacheName())) {
+            return;
+        }
+        if (invalidation.key() == null) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(invalidation.key());
+        }
+    }
+}
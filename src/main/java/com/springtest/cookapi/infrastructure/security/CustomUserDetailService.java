@@ -2,31 +2,76 @@ package com.springtest.cookapi.infrastructure.security;
 
 import com.springtest.cookapi.domain.entities.User;
 import com.springtest.cookapi.infrastructure.repositories.UserRepository;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Collection;
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailService implements UserDetailsService {
+public class CustomUserDetailService implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
+    private final UserCache userCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetails cached = userCache.getUserFromCache(username);
+        if (cached != null) {
+            return cached;
+        }
         User user = userRepository.findByUsername(username).orElseThrow(() -> new UsernameNotFoundException(username));
-        return new CustomUserDetails(
+        UserDetails userDetails = new CustomUserDetails(
                 user.getId(),
                 user.getUsername(),
                 user.getPassword(),
+                user.getFullname(),
                 getAuthority(user)
         );
+        userCache.putUserInCache(userDetails);
+        return userDetails;
+    }
+
+    // Must be called whenever a user's password or role changes
+    public void evictUser(String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // evicting before commit would let a concurrent load cache the old row again
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userCache.removeUserFromCache(username);
+                }
+            });
+        } else {
+            userCache.removeUserFromCache(username);
+        }
+    }
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        evictUser(user.getUsername());
+        if (user instanceof CustomUserDetails customUserDetails) {
+            return new CustomUserDetails(
+                    customUserDetails.getUserId(),
+                    customUserDetails.getUsername(),
+                    newPassword,
+                    customUserDetails.getFullname(),
+                    customUserDetails.getAuthorities()
+            );
+        }
+        return loadUserByUsername(user.getUsername());
     }
 
     private Collection<? extends GrantedAuthority> getAuthority(User user) {
@@ -9,17 +9,27 @@ public class CustomUserDetails implements UserDetails {
     private final Long userId;
     private final String username;
     private final String password;
+    private final String fullname;
     private final Collection<? extends GrantedAuthority> authorities;
 
     public CustomUserDetails(Long userId, String username, String password,
                              Collection<? extends GrantedAuthority> authorities) {
+        this(userId, username, password, null, authorities);
+    }
+
+    public CustomUserDetails(Long userId, String username, String password, String fullname,
+                             Collection<? extends GrantedAuthority> authorities) {
         this.userId = userId;
         this.username = username;
         this.password = password;
+        this.fullname = fullname;
         this.authorities = authorities;
     }
 
     public Long getUserId() { return userId; }
+
+    // null when the principal was loaded without it (e.g. from an access token issued before it was a claim)
+    public String getFullname() { return fullname; }
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
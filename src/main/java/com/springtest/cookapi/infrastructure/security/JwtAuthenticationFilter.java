@@ -1,25 +1,40 @@
 package com.springtest.cookapi.infrastructure.security;
 
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
+@Slf4j
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
+    private final RevokedSessionFilter revokedSessionFilter;
+
+    // When enabled, the principal is built from the token claims instead of being loaded from the database
+    @Value("${app.jwt.stateless:true}")
+    private boolean stateless;
+    @Value("${app.jwt.revocation-check.enabled:false}")
+    private boolean revocationCheckEnabled;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -27,25 +42,57 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     FilterChain filterChain) throws ServletException, IOException {
         // Intercept request
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String username;
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")
+                || SecurityContextHolder.getContext().getAuthentication() != null) {
             filterChain.doFilter(request, response);
             return;
         }
-        jwt = getJwtFromRequest(request);
-        username = jwtService.extractUsernameFromToken(jwt);
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (jwtService.isValidToken(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        UserDetails userDetails = authenticate(getJwtFromRequest(request));
+        if (userDetails != null) {
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
-            filterChain.doFilter(request, response);
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private UserDetails authenticate(String jwt) {
+        JwtClaims claims;
+        try {
+            claims = jwtService.parseClaims(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected JWT: {}", e.getMessage());
+            return null;
+        }
+        if (claims.isRefreshToken() || claims.subject() == null) {
+            return null;
+        }
+
+        if (claims.sessionId() != null && revokedSessionFilter.isRevoked(claims.sessionId())) {
+            return null;
+        }
+        if (revocationCheckEnabled && claims.userId() != null
+                && tokenRevocationService.isRevoked(claims.userId(), claims.issuedAt())) {
+            return null;
+        }
+
+        if (stateless && claims.userId() != null && claims.role() != null) {
+            return new CustomUserDetails(
+                    claims.userId(),
+                    claims.subject(),
+                    null,
+                    claims.fullname(),
+                    List.of(new SimpleGrantedAuthority(claims.role()))
+            );
+        }
+        // tokens issued before the role claim existed still need the user from the database
+        try {
+            return userDetailsService.loadUserByUsername(claims.subject());
+        } catch (UsernameNotFoundException e) {
+            return null;
         }
     }
 
@@ -56,4 +103,3 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return authHeader.substring(7);
     }
 }
-
@@ -0,0 +1,38 @@
+package com.springtest.cookapi.infrastructure.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+// Immutable view of the claims of a verified token; role and fullname are only present on access tokens,
+// tokenId only on refresh tokens, and sessionId on tokens issued through a login
+public record JwtClaims(
+        String subject,
+        Long userId,
+        String tokenType,
+        String role,
+        String fullname,
+        String tokenId,
+        String sessionId,
+        Instant issuedAt,
+        Instant expiration
+) {
+    static JwtClaims from(Claims claims) {
+        Object userId = claims.get(JwtService.USER_ID_CLAIM);
+        return new JwtClaims(
+                claims.getSubject(),
+                userId != null ? Long.valueOf(userId.toString()) : null,
+                claims.get(JwtService.TOKEN_TYPE_CLAIM, String.class),
+                claims.get(JwtService.ROLE_CLAIM, String.class),
+                claims.get(JwtService.FULLNAME_CLAIM, String.class),
+                claims.getId(),
+                claims.get(JwtService.SESSION_ID_CLAIM, String.class),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null
+        );
+    }
+
+    public boolean isRefreshToken() {
+        return "refresh".equals(tokenType);
+    }
+}
@@ -1,8 +1,10 @@
 package com.springtest.cookapi.infrastructure.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.springtest.cookapi.domain.responses.LoginResponse;
-import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -14,9 +16,16 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.UUID;
 
 @Service
 @Slf4j
@@ -27,27 +36,34 @@ public class JwtService {
     private long jwtExpirationMs;
     @Value("${app.jwt.refresh-expiration}")
     private long refreshTokenExpirationMs;
+    // 0 disables the cache of already verified tokens
+    @Value("${app.jwt.verified-cache.size:10000}")
+    private long verifiedCacheSize = 10000;
 
     private static final String TOKEN_PREFIX = "Bearer ";
+    public static final String USER_ID_CLAIM = "userId";
+    public static final String TOKEN_TYPE_CLAIM = "tokenType";
+    public static final String ROLE_CLAIM = "role";
+    public static final String FULLNAME_CLAIM = "fullname";
+    public static final String TOKEN_ID_CLAIM = "jti";
+    public static final String SESSION_ID_CLAIM = "sid";
+
+    // Key and parser are immutable and thread-safe, so they are built once on first use
+    private record Verifier(SecretKey key, JwtParser parser, Cache<String, JwtClaims> verifiedTokens) {}
+
+    private volatile Verifier verifier;
 
 
     //Generate access token
     public String generateAccessToken(Authentication authentication, Long userId) {
-        Map<String, String> claims = new HashMap<>();
-        claims.put("userId", userId.toString());
-        claims.put("tokenType", "access");
-        return generateToken(authentication, jwtExpirationMs, claims);
+        return generateToken(authentication, jwtExpirationMs, accessClaims(authentication, userId, null));
     }
 
 
-    //Generate refresh token
+    //Generate refresh token (not registered with RefreshTokenStore, so it cannot be used to refresh)
     public String generateRefreshToken(Authentication authentication, Long userId) {
-
-        Map<String, String> claims = new HashMap<>();
-        claims.put("tokenType", "refresh");
-        claims.put("userId", userId.toString());
-
-        return generateToken(authentication, refreshTokenExpirationMs, claims);
+        return generateToken(authentication, refreshTokenExpirationMs,
+                refreshClaims(userId, UUID.randomUUID().toString(), UUID.randomUUID().toString()));
     }
     //Validate token
     public boolean isValidToken(String token, UserDetails user) {
@@ -56,10 +72,7 @@ public class JwtService {
             return false;
         }
         try {
-            Jwts.parser()
-                    .verifyWith(getSignInKey())
-                    .build()
-                    .parseSignedClaims(token);
+            parseClaims(token);
             return true;
         } catch (SignatureException e) {
             log.error("Invalid JWT signature: {}", e.getMessage());
@@ -73,67 +86,124 @@ public class JwtService {
 
     //Validate if the token is refresh token
     public boolean isValidRefreshToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return "refresh".equals(claims.get("tokenType"));
+        return parseClaims(token).isRefreshToken();
+    }
+
+    // Verifies the signature and expiry; throws JwtException if the token is not valid.
+    // Tokens verified before are served from a bounded cache keyed by their hash until they expire.
+    public JwtClaims parseClaims(String token) {
+        Verifier verifier = getVerifier();
+        if (verifier.verifiedTokens() == null) {
+            return JwtClaims.from(verifier.parser().parseSignedClaims(token).getPayload());
+        }
+        String tokenHash = hash(token);
+        JwtClaims cached = verifier.verifiedTokens().getIfPresent(tokenHash);
+        if (cached != null && (cached.expiration() == null || cached.expiration().isAfter(Instant.now()))) {
+            return cached;
+        }
+        // an expired entry falls through so the parser throws ExpiredJwtException as before
+        JwtClaims claims = JwtClaims.from(verifier.parser().parseSignedClaims(token).getPayload());
+        verifier.verifiedTokens().put(tokenHash, claims);
+        return claims;
     }
 
     private String generateToken(Authentication authentication, long expirationTime, Map<String, String> claims) {
-        UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + expirationTime);
+        return generateToken(authentication, now, new Date(now.getTime() + expirationTime), claims);
+    }
+
+    private String generateToken(Authentication authentication, Date issuedAt, Date expiryDate, Map<String, String> claims) {
+        UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
         return Jwts.builder()
                 .header()
                 .add("typ", "JWT")
                 .and()
                 .subject(userPrincipal.getUsername())
                 .claims(claims)
-                .issuedAt(now)
+                .issuedAt(issuedAt)
                 .expiration(expiryDate)
-                .signWith(getSignInKey())
+                .signWith(getVerifier().key())
                 .compact();
     }
 
-    private SecretKey getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private Map<String, String> accessClaims(Authentication authentication, Long userId, String sessionId) {
+        Map<String, String> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, userId.toString());
+        claims.put(TOKEN_TYPE_CLAIM, "access");
+        if (sessionId != null) {
+            // lets a logout revoke the access tokens of the session as well
+            claims.put(SESSION_ID_CLAIM, sessionId);
+        }
+        // lets the authentication filter build the principal without loading the user
+        authentication.getAuthorities().stream()
+                .findFirst()
+                .ifPresent(authority -> claims.put(ROLE_CLAIM, authority.getAuthority()));
+        if (authentication.getPrincipal() instanceof CustomUserDetails userDetails && userDetails.getFullname() != null) {
+            claims.put(FULLNAME_CLAIM, userDetails.getFullname());
+        }
+        return claims;
+    }
+
+    private Map<String, String> refreshClaims(Long userId, String sessionId, String tokenId) {
+        Map<String, String> claims = new HashMap<>();
+        claims.put(TOKEN_TYPE_CLAIM, "refresh");
+        claims.put(USER_ID_CLAIM, userId.toString());
+        claims.put(SESSION_ID_CLAIM, sessionId);
+        claims.put(TOKEN_ID_CLAIM, tokenId);
+        return claims;
+    }
+
+    private Verifier getVerifier() {
+        Verifier current = verifier;
+        if (current == null) {
+            // racing threads build equivalent instances, so no locking is needed
+            SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+            Cache<String, JwtClaims> verifiedTokens = verifiedCacheSize > 0
+                    ? Caffeine.newBuilder()
+                        .maximumSize(verifiedCacheSize)
+                        .expireAfterWrite(Duration.ofMillis(jwtExpirationMs))
+                        .build()
+                    : null;
+            current = new Verifier(key, Jwts.parser().verifyWith(key).build(), verifiedTokens);
+            verifier = current;
+        }
+        return current;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     public Date extractExpirationDateFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getBody()
-                .getExpiration();
+        return Date.from(parseClaims(token).expiration());
     }
     public String extractUsernameFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        return parseClaims(token).subject();
     }
 
     public Long extractUserIdFromToken(String token) {
-        var idClaim = Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .get("userId");
-        return Long.valueOf(idClaim.toString());
-    }
-
-    public LoginResponse generateTokenPair(Authentication authentication, Long userId) {
-        String accessToken = generateAccessToken(authentication, userId);
-        String refreshToken = generateRefreshToken(authentication, userId);
-        Date expirationDate = extractExpirationDateFromToken(accessToken);
-        Date refreshExpirationDate = extractExpirationDateFromToken(refreshToken);
+        return parseClaims(token).userId();
+    }
+
+    // sessionId stays the same across refreshes of one login; refreshTokenId is unique per refresh token
+    public LoginResponse generateTokenPair(Authentication authentication, Long userId, String sessionId, String refreshTokenId) {
+        // JWT dates have second precision; truncating up front keeps the returned dates equal to the token claims
+        Date now = new Date(Instant.now().getEpochSecond() * 1000);
+        Date expirationDate = new Date(now.getTime() + jwtExpirationMs);
+        Date refreshExpirationDate = new Date(now.getTime() + refreshTokenExpirationMs);
+        String accessToken = generateToken(authentication, now, expirationDate,
+                accessClaims(authentication, userId, sessionId));
+        String refreshToken = generateToken(authentication, now, refreshExpirationDate,
+                refreshClaims(userId, sessionId, refreshTokenId));
         return new LoginResponse(userId, accessToken, refreshToken, expirationDate, refreshExpirationDate);
     }
-}
\ No newline at end of file
+
+    public Duration getAccessTokenLifetime() {
+        return Duration.ofMillis(jwtExpirationMs);
+    }
+}
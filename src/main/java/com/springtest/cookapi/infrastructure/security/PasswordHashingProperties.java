@@ -0,0 +1,54 @@
+package com.springtest.cookapi.infrastructure.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+
+// Target algorithm and cost for new password hashes (app.auth.password.*).
+// Existing hashes keep verifying with whatever they were created with and are re-hashed on the next login
+// when they do not match the target; hashes without an {id} prefix predate this and are plain bcrypt.
+@ConfigurationProperties("app.auth.password")
+public record PasswordHashingProperties(
+        @DefaultValue("bcrypt") String algorithm,
+        @DefaultValue Bcrypt bcrypt,
+        @DefaultValue Argon2 argon2
+) {
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+
+    public record Bcrypt(@DefaultValue("10") int strength) {}
+
+    // memory is in KiB
+    public record Argon2(
+            @DefaultValue("16") int saltLength,
+            @DefaultValue("32") int hashLength,
+            @DefaultValue("1") int parallelism,
+            @DefaultValue("16384") int memory,
+            @DefaultValue("2") int iterations
+    ) {}
+
+    public PasswordEncoder createEncoder() {
+        if (!algorithm.equals(BCRYPT) && !algorithm.equals(ARGON2)) {
+            throw new IllegalArgumentException("Unsupported password hashing algorithm: " + algorithm);
+        }
+        BCryptPasswordEncoder bcryptEncoder = new BCryptPasswordEncoder(bcrypt.strength());
+        Map<String, PasswordEncoder> encoders = Map.of(
+                BCRYPT, bcryptEncoder,
+                ARGON2, new Argon2PasswordEncoder(
+                        argon2.saltLength(),
+                        argon2.hashLength(),
+                        argon2.parallelism(),
+                        argon2.memory(),
+                        argon2.iterations()
+                )
+        );
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(bcryptEncoder);
+        return encoder;
+    }
+}
@@ -0,0 +1,119 @@
+package com.springtest.cookapi.infrastructure.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Server-side state of refresh token rotation. A login starts a session (sid) whose key holds the jti of the
+// only refresh token that may currently be used; every refresh replaces it. Presenting an older jti of a live
+// session means the token was stolen or replayed, so the whole session is revoked. Revoked sessions are
+// remembered for the access token lifetime so their access tokens can be rejected too (see RevokedSessionFilter).
+@Component
+@RequiredArgsConstructor
+public class RefreshTokenStore {
+    public enum RotationResult { ROTATED, REUSED, UNKNOWN }
+
+    private static final String SESSION_PREFIX = "refresh-session::";
+    private static final String USER_SESSIONS_PREFIX = "refresh-user-sessions::";
+    static final String REVOKED_SESSION_PREFIX = "revoked-session::";
+
+    // KEYS: session, user sessions, revoked session; ARGV: sid, old jti, new jti, refresh ttl ms, access ttl ms
+    private static final RedisScript<Long> ROTATE = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[1])
+            if not current then
+                return 0
+            end
+            if current ~= ARGV[2] then
+                redis.call('DEL', KEYS[1])
+                redis.call('SREM', KEYS[2], ARGV[1])
+                redis.call('SET', KEYS[3], '1', 'PX', ARGV[5])
+                return -1
+            end
+            redis.call('SET', KEYS[1], ARGV[3], 'PX', ARGV[4])
+            redis.call('PEXPIRE', KEYS[2], ARGV[4])
+            return 1
+            """, Long.class);
+
+    // KEYS: user sessions, then session and revoked session of each sid; ARGV: access ttl ms, sid... in KEYS order.
+    // Returns how many sessions the user still has
+    private static final RedisScript<Long> REVOKE = new DefaultRedisScript<>("""
+            for i = 2, #ARGV do
+                redis.call('DEL', KEYS[2 * i - 2])
+                redis.call('SREM', KEYS[1], ARGV[i])
+                redis.call('SET', KEYS[2 * i - 1], '1', 'PX', ARGV[1])
+            end
+            return redis.call('SCARD', KEYS[1])
+            """, Long.class);
+    // sessions registered while revoking all of them are picked up by another pass
+    private static final int MAX_REVOKE_ALL_PASSES = 5;
+
+    private final StringRedisTemplate redisTemplate;
+    private final JwtService jwtService;
+    private final RevokedSessionFilter revokedSessionFilter;
+
+    public void register(Long userId, String sessionId, String refreshTokenId, Instant refreshTokenExpiration) {
+        Duration ttl = Duration.between(Instant.now(), refreshTokenExpiration);
+        redisTemplate.opsForValue().set(SESSION_PREFIX + sessionId, refreshTokenId, ttl);
+        redisTemplate.opsForSet().add(USER_SESSIONS_PREFIX + userId, sessionId);
+        redisTemplate.expire(USER_SESSIONS_PREFIX + userId, ttl);
+    }
+
+    // Atomically swaps the session's current refresh token for the new one
+    public RotationResult rotate(Long userId, String sessionId, String refreshTokenId,
+                                 String newRefreshTokenId, Instant newRefreshTokenExpiration) {
+        Long result = redisTemplate.execute(
+                ROTATE,
+                List.of(SESSION_PREFIX + sessionId, USER_SESSIONS_PREFIX + userId, REVOKED_SESSION_PREFIX + sessionId),
+                sessionId,
+                refreshTokenId,
+                newRefreshTokenId,
+                String.valueOf(Math.max(1, Duration.between(Instant.now(), newRefreshTokenExpiration).toMillis())),
+                String.valueOf(jwtService.getAccessTokenLifetime().toMillis())
+        );
+        if (result == null || result == 0) {
+            return RotationResult.UNKNOWN;
+        }
+        if (result < 0) {
+            revokedSessionFilter.add(sessionId);
+            return RotationResult.REUSED;
+        }
+        return RotationResult.ROTATED;
+    }
+
+    public void revokeSession(Long userId, String sessionId) {
+        revoke(userId, List.of(sessionId));
+    }
+
+    public void revokeAllSessions(Long userId) {
+        for (int pass = 0; pass < MAX_REVOKE_ALL_PASSES; pass++) {
+            Set<String> sessionIds = redisTemplate.opsForSet().members(USER_SESSIONS_PREFIX + userId);
+            if (sessionIds == null || sessionIds.isEmpty() || revoke(userId, List.copyOf(sessionIds)) == 0) {
+                return;
+            }
+        }
+    }
+
+    // Returns the number of sessions the user has left
+    private long revoke(Long userId, List<String> sessionIds) {
+        List<String> keys = new ArrayList<>(1 + 2 * sessionIds.size());
+        String[] args = new String[sessionIds.size() + 1];
+        keys.add(USER_SESSIONS_PREFIX + userId);
+        args[0] = String.valueOf(jwtService.getAccessTokenLifetime().toMillis());
+        for (int i = 0; i < sessionIds.size(); i++) {
+            keys.add(SESSION_PREFIX + sessionIds.get(i));
+            keys.add(REVOKED_SESSION_PREFIX + sessionIds.get(i));
+            args[i + 1] = sessionIds.get(i);
+        }
+        Long remaining = redisTemplate.execute(REVOKE, keys, (Object[]) args);
+        sessionIds.forEach(revokedSessionFilter::add);
+        return remaining != null ? remaining : 0;
+    }
+}
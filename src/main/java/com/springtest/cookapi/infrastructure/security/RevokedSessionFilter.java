@@ -0,0 +1,170 @@
+package com.springtest.cookapi.infrastructure.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springtest.cookapi.infrastructure.cache.CacheInvalidation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Local bloom filter of revoked session ids. Most requests carry a session that was never revoked, and the
+// filter answers that without a network hop; only possible hits are confirmed against Redis.
+// Revocations made on other nodes arrive over the cache invalidation channel. Revocation markers expire with
+// the access token lifetime, so the filter is rebuilt from Redis periodically to drop them.
+@Component
+@Slf4j
+public class RevokedSessionFilter implements MessageListener {
+    static final String CACHE_NAME = "revoked-sessions";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String channel;
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile Bloom current;
+    private volatile Bloom rebuilding;
+
+    public RevokedSessionFilter(@Value("${app.jwt.revoked-filter.expected-insertions:100000}") int expectedInsertions,
+                                @Value("${app.jwt.revoked-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                @Value("${app.cache.invalidation-channel:cache-invalidation}") String channel,
+                                StringRedisTemplate redisTemplate,
+                                ObjectMapper objectMapper,
+                                RedisMessageListenerContainer listenerContainer) {
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.channel = channel;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.current = new Bloom(expectedInsertions, falsePositiveRate);
+        listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+    }
+
+    public boolean isRevoked(String sessionId) {
+        if (!current.mightContain(sessionId)) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(RefreshTokenStore.REVOKED_SESSION_PREFIX + sessionId));
+        } catch (RuntimeException e) {
+            log.warn("Could not confirm revocation of session {}, treating it as revoked", sessionId, e);
+            return true;
+        }
+    }
+
+    // Called after the revocation marker was written to Redis
+    public void add(String sessionId) {
+        addLocal(sessionId);
+        try {
+            String message = objectMapper.writeValueAsString(new CacheInvalidation(nodeId, CACHE_NAME, sessionId));
+            redisTemplate.convertAndSend(channel, message);
+        } catch (JsonProcessingException | RuntimeException e) {
+            // other nodes pick the revocation up on their next rebuild
+            log.warn("Failed to publish revocation of session {}", sessionId, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidation invalidation;
+        try {
+            invalidation = objectMapper.readValue(message.getBody(), CacheInvalidation.class);
+        } catch (IOException e) {
+            log.warn("Ignoring malformed cache invalidation message", e);
+            return;
+        }
+        if (!nodeId.equals(invalidation.nodeId()) && CACHE_NAME.equals(invalidation.cacheName()) && invalidation.key() != null) {
+            addLocal(invalidation.key());
+        }
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.jwt.revoked-filter.rebuild-interval:PT1H}")
+    public void rebuild() {
+        Bloom fresh = new Bloom(expectedInsertions, falsePositiveRate);
+        // revocations during the scan go to both filters; earlier ones are already in Redis
+        rebuilding = fresh;
+        ScanOptions options = ScanOptions.scanOptions().match(RefreshTokenStore.REVOKED_SESSION_PREFIX + "*").count(1000).build();
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            keys.forEachRemaining(key -> fresh.put(key.substring(RefreshTokenStore.REVOKED_SESSION_PREFIX.length())));
+            current = fresh;
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild revoked session filter, keeping the current one", e);
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    private void addLocal(String sessionId) {
+        current.put(sessionId);
+        Bloom next = rebuilding;
+        if (next != null) {
+            next.put(sessionId);
+        }
+    }
+
+    // Standard bloom filter with double hashing over two 64-bit FNV-1a variants; lock-free
+    static final class Bloom {
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+
+        Bloom(int expectedInsertions, double falsePositiveRate) {
+            long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bitCount = Math.max(64, m);
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+            this.bits = new AtomicLongArray((int) ((bitCount + 63) / 64));
+        }
+
+        void put(String value) {
+            long h1 = hash(value, 0xcbf29ce484222325L);
+            long h2 = hash(value, 0x84222325cbf29ce4L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word;
+                do {
+                    word = bits.get(index);
+                } while ((word & mask) == 0 && !bits.compareAndSet(index, word, word | mask));
+            }
+        }
+
+        boolean mightContain(String value) {
+            long h1 = hash(value, 0xcbf29ce484222325L);
+            long h2 = hash(value, 0x84222325cbf29ce4L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long hash(String value, long seed) {
+            long hash = seed;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            // final avalanche so nearby inputs spread over the whole range
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
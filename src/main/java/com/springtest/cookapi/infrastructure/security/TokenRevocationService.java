@@ -0,0 +1,43 @@
+package com.springtest.cookapi.infrastructure.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// Marks every access token of a user issued before now as revoked.
+// The marker only has to outlive the longest-lived access token, so it expires after app.jwt.expiration.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TokenRevocationService {
+    private static final String KEY_PREFIX = "tokens-revoked-before::";
+
+    private final StringRedisTemplate redisTemplate;
+    @Value("${app.jwt.expiration}")
+    private long jwtExpirationMs;
+
+    public void revokeAll(Long userId) {
+        redisTemplate.opsForValue().set(
+                KEY_PREFIX + userId,
+                String.valueOf(System.currentTimeMillis()),
+                Duration.ofMillis(jwtExpirationMs)
+        );
+    }
+
+    public boolean isRevoked(Long userId, Instant issuedAt) {
+        String revokedBefore;
+        try {
+            revokedBefore = redisTemplate.opsForValue().get(KEY_PREFIX + userId);
+        } catch (RuntimeException e) {
+            log.warn("Could not check token revocation for user {}", userId, e);
+            return false;
+        }
+        // iat has second precision, so a token issued in the same second as the revocation is revoked too
+        return revokedBefore != null && (issuedAt == null || issuedAt.toEpochMilli() <= Long.parseLong(revokedBefore));
+    }
+}
@@ -0,0 +1,25 @@
+package com.springtest.cookapi.infrastructure.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Defers an action until the current transaction commits and drops it on rollback; outside a transaction it runs
+// right away. Evictions of data a transaction changes go through here: evicting before commit lets a concurrent
+// read cache the old rows again.
+public final class AfterCommit {
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -41,6 +41,10 @@ public class CurrentUserService {
 
     public UserDto getCurrentUserDto() {
         var userDetails = getCurrentUser();
+        if (userDetails.getFullname() != null) {
+            // everything the DTO needs came with the access token
+            return new UserDto(userDetails.getUserId(), userDetails.getFullname(), userDetails.getUsername());
+        }
         var userObject = userRepository.findById(userDetails.getUserId()).orElse(null);
         if (userObject == null) {
             throw new NotFoundException("User not found");
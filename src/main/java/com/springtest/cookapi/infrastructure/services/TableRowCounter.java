@@ -0,0 +1,61 @@
+package com.springtest.cookapi.infrastructure.services;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+// Row counts of whole tables for unfiltered listings, so offset pages can report totals without a COUNT(*) per request.
+// Counts are refreshed in the background after refreshInterval. Tables the planner estimates above exactThreshold
+// rows report pg_class.reltuples instead of being counted, which is what makes the totals approximate.
+@Component
+public class TableRowCounter {
+    private static final Pattern TABLE_NAME = Pattern.compile("[a-z_]+");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long exactThreshold;
+    private final LoadingCache<String, Long> counts;
+
+    public TableRowCounter(JdbcTemplate jdbcTemplate,
+                           @Value("${app.paging.count-refresh-interval:PT30S}") Duration refreshInterval,
+                           @Value("${app.paging.exact-count-threshold:100000}") long exactThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.exactThreshold = exactThreshold;
+        this.counts = Caffeine.newBuilder()
+                .refreshAfterWrite(refreshInterval)
+                .build(this::countRows);
+    }
+
+    public long count(String table) {
+        if (!TABLE_NAME.matcher(table).matches()) {
+            throw new IllegalArgumentException("Invalid table name: " + table);
+        }
+        return counts.get(table);
+    }
+
+    // Drops this node's count after a local insert or delete; other nodes catch up on their next refresh
+    public void invalidate(String table) {
+        counts.invalidate(table);
+    }
+
+    // Same as invalidate, once the current transaction commits: dropped earlier, a concurrent reload would count
+    // the table without the write and keep that until the next refresh
+    public void invalidateAfterCommit(String table) {
+        AfterCommit.run(() -> counts.invalidate(table));
+    }
+
+    private long countRows(String table) {
+        // reltuples is -1 for tables that were never vacuumed or analyzed
+        Long estimate = jdbcTemplate.queryForObject(
+                "SELECT cast(reltuples AS bigint) FROM pg_class WHERE oid = to_regclass(?)", Long.class, table);
+        if (estimate != null && estimate > exactThreshold) {
+            return estimate;
+        }
+        Long exact = jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class);
+        return exact != null ? exact : 0L;
+    }
+}
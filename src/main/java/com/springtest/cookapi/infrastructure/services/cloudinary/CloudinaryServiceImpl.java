@@ -4,6 +4,7 @@ import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
 import com.springtest.cookapi.domain.exceptions.BadRequestException;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -11,6 +12,7 @@ import java.io.IOException;
 import java.util.Map;
 
 @Service
+@Profile("!local-images")
 public class CloudinaryServiceImpl implements ICloudinaryService {
 
     private final Cloudinary cloudinary;
@@ -36,8 +38,9 @@ public class CloudinaryServiceImpl implements ICloudinaryService {
             throw new IllegalArgumentException("PublicId nie może być pusty");
         }
 
+        // "not found" means an earlier attempt already deleted it; ImageDeletionWorker retries are idempotent this way
         Map deleteResult = cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
-        if (!"ok".equals(deleteResult.get("result"))) {
+        if (!"ok".equals(deleteResult.get("result")) && !"not found".equals(deleteResult.get("result"))) {
             throw new BadRequestException("Delete image failed");
         }
     }
@@ -0,0 +1,188 @@
+package com.springtest.cookapi.infrastructure.services.cloudinary;
+
+import com.springtest.cookapi.domain.entities.ImageDeletion;
+import com.springtest.cookapi.infrastructure.repositories.ImageDeletionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Drains the image deletion outbox. A batch is claimed in a short transaction that pushes its rows lease into the
+// future, the image host is called with no transaction or connection held, and a second short transaction removes
+// the deleted rows and reschedules the failed ones with exponential backoff. A worker that dies mid-batch leaves
+// its rows to be picked up again once the lease runs out.
+// The calls of a batch are made together and every one still running callTimeout after they started is cut off, so
+// a batch takes at most one callTimeout; should a worker still outlive its lease, it only completes the rows that
+// carry the lease it set.
+@Component
+@Slf4j
+public class ImageDeletionWorker {
+    private final ImageDeletionRepository imageDeletionRepository;
+    private final ICloudinaryService cloudinaryService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration lease;
+    private final Duration callTimeout;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Counter deletedImages;
+    private final Counter retriedImages;
+    private final Counter abandonedImages;
+    private final ExecutorService callExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ImageDeletionWorker(ImageDeletionRepository imageDeletionRepository,
+                               ICloudinaryService cloudinaryService,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.image-cleanup.batch-size:50}") int batchSize,
+                               @Value("${app.image-cleanup.lease:PT5M}") Duration lease,
+                               @Value("${app.image-cleanup.call-timeout:PT5S}") Duration callTimeout,
+                               @Value("${app.image-cleanup.max-attempts:10}") int maxAttempts,
+                               @Value("${app.image-cleanup.initial-backoff:PT30S}") Duration initialBackoff,
+                               @Value("${app.image-cleanup.max-backoff:PT6H}") Duration maxBackoff) {
+        this.imageDeletionRepository = imageDeletionRepository;
+        this.cloudinaryService = cloudinaryService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // the second half of the lease leaves room for the claim and completion transactions
+        if (lease.compareTo(callTimeout.multipliedBy(2)) < 0) {
+            throw new IllegalArgumentException("app.image-cleanup.lease must be at least twice app.image-cleanup.call-timeout");
+        }
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.callTimeout = callTimeout;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.deletedImages = Counter.builder("image.cleanup.deletions").tag("result", "deleted").register(meterRegistry);
+        this.retriedImages = Counter.builder("image.cleanup.deletions").tag("result", "retried").register(meterRegistry);
+        this.abandonedImages = Counter.builder("image.cleanup.deletions").tag("result", "abandoned").register(meterRegistry);
+    }
+
+    // Returns the number of deleted images
+    @Scheduled(fixedDelayString = "${app.image-cleanup.interval:PT10S}")
+    public int drain() {
+        int deleted = 0;
+        while (true) {
+            var now = Instant.now();
+            // Postgres keeps microseconds, so the lease is compared against the value it actually stored
+            var leaseUntil = now.plus(lease).truncatedTo(ChronoUnit.MICROS);
+            List<ImageDeletion> batch = transactionTemplate.execute(status -> claim(now, leaseUntil));
+            if (batch == null || batch.isEmpty()) {
+                return deleted;
+            }
+
+            List<Future<?>> calls = new ArrayList<>(batch.size());
+            for (ImageDeletion deletion : batch) {
+                calls.add(callExecutor.submit(() -> {
+                    cloudinaryService.deleteImageFromCloudinary(deletion.getPublicId());
+                    return null;
+                }));
+            }
+
+            long deadline = System.nanoTime() + callTimeout.toNanos();
+            List<Long> done = new ArrayList<>();
+            List<ImageDeletion> failed = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                ImageDeletion deletion = batch.get(i);
+                try {
+                    await(calls.get(i), deadline);
+                    done.add(deletion.getId());
+                } catch (InterruptedException e) {
+                    calls.forEach(call -> call.cancel(true));
+                    Thread.currentThread().interrupt();
+                    return deleted;
+                } catch (Exception e) {
+                    deletion.setLastError(abbreviate(e.toString()));
+                    failed.add(deletion);
+                }
+            }
+
+            Integer completed = transactionTemplate.execute(status -> complete(done, failed, leaseUntil));
+            deleted += completed == null ? 0 : completed;
+            if (batch.size() < batchSize) {
+                return deleted;
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        callExecutor.shutdownNow();
+    }
+
+    private List<ImageDeletion> claim(Instant now, Instant leaseUntil) {
+        List<ImageDeletion> batch = imageDeletionRepository.lockDue(now, batchSize);
+        for (ImageDeletion deletion : batch) {
+            deletion.setAttempts(deletion.getAttempts() + 1);
+            deletion.setNextAttemptAt(leaseUntil);
+        }
+        return batch;
+    }
+
+    // A call still running at the deadline is abandoned on its virtual thread; deleting an image twice is harmless
+    private void await(Future<?> call, long deadline) throws Exception {
+        try {
+            call.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            call.cancel(true);
+            throw new TimeoutException("Image host did not answer within " + callTimeout);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    // Returns the number of deleted rows; rows whose lease ran out and went to another worker are skipped
+    private int complete(List<Long> done, List<ImageDeletion> failed, Instant leaseUntil) {
+        int deleted = 0;
+        if (!done.isEmpty()) {
+            deleted = imageDeletionRepository.deleteClaimed(done, leaseUntil);
+            deletedImages.increment(deleted);
+        }
+        var now = Instant.now();
+        for (ImageDeletion deletion : failed) {
+            boolean abandon = deletion.getAttempts() >= maxAttempts;
+            int updated = abandon
+                    ? imageDeletionRepository.abandonClaimed(deletion.getId(), leaseUntil, deletion.getLastError())
+                    : imageDeletionRepository.rescheduleClaimed(deletion.getId(), leaseUntil, now.plus(backoff(deletion.getAttempts())), deletion.getLastError());
+            if (updated == 0) {
+                log.warn("Lease on image {} ran out before its failed deletion was recorded, leaving it to the worker that claimed it again", deletion.getPublicId());
+            } else if (abandon) {
+                log.error("Giving up deleting image {} after {} attempts: {}", deletion.getPublicId(), deletion.getAttempts(), deletion.getLastError());
+                abandonedImages.increment();
+            } else {
+                log.warn("Deleting image {} failed (attempt {}), retrying: {}", deletion.getPublicId(), deletion.getAttempts(), deletion.getLastError());
+                retriedImages.increment();
+            }
+        }
+        return deleted;
+    }
+
+    // Doubles per attempt up to maxBackoff; the random half spreads out images that failed during the same outage
+    private Duration backoff(int attempts) {
+        long delay = Math.min(initialBackoff.toMillis() << Math.min(attempts - 1, 30), maxBackoff.toMillis());
+        return Duration.ofMillis(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+    }
+
+    private static String abbreviate(String message) {
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+}
@@ -0,0 +1,61 @@
+package com.springtest.cookapi.infrastructure.services.cloudinary;
+
+import com.springtest.cookapi.domain.exceptions.BadRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+// Stand-in for Cloudinary when running with the "local-images" profile: images are kept in a local directory.
+// deleteLatency delays every deletion, which is enough to watch the outbox worker ride out a slow image host
+@Service
+@Profile("local-images")
+public class LocalCloudinaryServiceImpl implements ICloudinaryService {
+    private final Path directory;
+    private final Duration deleteLatency;
+
+    public LocalCloudinaryServiceImpl(@Value("${app.local-images.directory:${java.io.tmpdir}/cook-api-images}") Path directory,
+                                      @Value("${app.local-images.delete-latency:PT0S}") Duration deleteLatency) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.deleteLatency = deleteLatency;
+    }
+
+    @Override
+    public Map addImageToCloudinary(MultipartFile file) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new BadRequestException("File is empty");
+        }
+        String publicId = "cook-api-" + UUID.randomUUID();
+        Path target = directory.resolve(publicId);
+        file.transferTo(target);
+        return Map.of(
+                "public_id", publicId,
+                "secure_url", target.toUri().toString()
+        );
+    }
+
+    // Deleting a missing image succeeds, like a retried Cloudinary destroy whose first call went through
+    @Override
+    public void deleteImageFromCloudinary(String publicId) throws IOException {
+        if (publicId == null || publicId.isBlank() || publicId.contains("/") || publicId.contains("\\")) {
+            throw new IllegalArgumentException("Invalid publicId: " + publicId);
+        }
+        if (!deleteLatency.isZero()) {
+            try {
+                Thread.sleep(deleteLatency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while deleting " + publicId);
+            }
+        }
+        Files.deleteIfExists(directory.resolve(publicId));
+    }
+}
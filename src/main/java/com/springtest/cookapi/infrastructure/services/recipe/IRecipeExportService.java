@@ -0,0 +1,10 @@
+package com.springtest.cookapi.infrastructure.services.recipe;
+
+import com.springtest.cookapi.domain.enums.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface IRecipeExportService {
+    long exportRecipes(ExportFormat format, OutputStream out) throws IOException;
+}
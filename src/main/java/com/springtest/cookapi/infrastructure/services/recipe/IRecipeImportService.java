@@ -0,0 +1,10 @@
+package com.springtest.cookapi.infrastructure.services.recipe;
+
+import com.springtest.cookapi.domain.responses.ImportResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface IRecipeImportService {
+    ImportResponse importRecipes(InputStream ndjson) throws IOException;
+}
@@ -1,18 +1,30 @@
 package com.springtest.cookapi.infrastructure.services.recipe;
 
 import com.springtest.cookapi.domain.dtos.recipe.CreateRecipeDto;
+import com.springtest.cookapi.domain.dtos.recipe.RecipeCoverageDto;
 import com.springtest.cookapi.domain.dtos.recipe.RecipeDto;
+import com.springtest.cookapi.domain.dtos.recipe.RecipeVersionDto;
 import com.springtest.cookapi.domain.dtos.recipe.UpdateRecipeDto;
+import com.springtest.cookapi.domain.requests.GetCookableRecipesRequest;
 import com.springtest.cookapi.domain.requests.GetRecipesRequest;
+import com.springtest.cookapi.domain.requests.ScrollRecipesRequest;
+import com.springtest.cookapi.domain.requests.SearchRecipesRequest;
 import com.springtest.cookapi.domain.responses.PageResponse;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.List;
 
 public interface IRecipeService {
     RecipeDto addRecipe(CreateRecipeDto createRecipeDto, MultipartFile image) throws IOException;
     void deleteRecipe(Long recipeId) throws IOException;
     PageResponse<RecipeDto> getAllRecipes(GetRecipesRequest getRecipesRequest);
+    PageResponse<RecipeDto> scrollRecipes(ScrollRecipesRequest scrollRecipesRequest);
+    PageResponse<RecipeDto> searchRecipes(SearchRecipesRequest searchRecipesRequest);
+    List<RecipeCoverageDto> getCookableRecipes(GetCookableRecipesRequest getCookableRecipesRequest);
     RecipeDto getRecipeDtoById(Long recipeId);
-    RecipeDto updateRecipe(Long recipeId, UpdateRecipeDto updateRecipeDto, MultipartFile image) throws IOException;
+    List<RecipeDto> getRecipesByIds(List<Long> recipeIds);
+    RecipeVersionDto getRecipeVersion(Long recipeId);
+    // expectedVersion is the version from If-Match, null for an unconditional update
+    RecipeDto updateRecipe(Long recipeId, UpdateRecipeDto updateRecipeDto, MultipartFile image, Long expectedVersion) throws IOException;
 }
@@ -0,0 +1,291 @@
+package com.springtest.cookapi.infrastructure.services.recipe;
+
+import com.springtest.cookapi.infrastructure.services.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// In-memory inverted index product id -> recipes, used to rank recipes by how many of their products the caller owns.
+// Recipe ids are mapped to dense int slots so that posting lists and per-query counters are plain int arrays.
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RecipeCoverageIndex {
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<int[]> counters = ThreadLocal.withInitial(() -> new int[0]);
+    private State state = new State();
+    // non-null while rebuild() reads the table; guarded by lock
+    private List<Consumer<State>> pendingUpdates;
+
+    public record Coverage(Long recipeId, int ownedProducts, int missingProducts) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.coverage-index.rebuild-interval:PT10M}", fixedDelayString = "${app.coverage-index.rebuild-interval:PT10M}")
+    public synchronized void rebuild() {
+        // updates committed while the table is read may be missing from the read, so they are replayed onto the new index
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        State fresh = new State();
+        try {
+            List<Long> productIds = new ArrayList<>();
+            long[] currentRecipe = {-1L};
+
+            jdbcTemplate.query("SELECT recipe_id, product_id FROM recipe_products ORDER BY recipe_id", rs -> {
+                long recipeId = rs.getLong(1);
+                if (recipeId != currentRecipe[0]) {
+                    if (currentRecipe[0] != -1L) {
+                        fresh.put(currentRecipe[0], productIds);
+                    }
+                    currentRecipe[0] = recipeId;
+                    productIds.clear();
+                }
+                productIds.add(rs.getLong(2));
+            });
+            if (currentRecipe[0] != -1L) {
+                fresh.put(currentRecipe[0], productIds);
+            }
+
+            lock.writeLock().lock();
+            try {
+                pendingUpdates.forEach(update -> update.accept(fresh));
+                state = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendingUpdates = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Recipe coverage index rebuilt with {} recipes", fresh.slotByRecipeId.size());
+    }
+
+    public void indexAfterCommit(Long recipeId, Collection<Long> productIds) {
+        List<Long> snapshot = List.copyOf(productIds);
+        AfterCommit.run(() -> apply(current -> current.put(recipeId, snapshot)));
+    }
+
+    public void indexAllAfterCommit(Map<Long, List<Long>> productIdsByRecipe) {
+        Map<Long, List<Long>> snapshot = Map.copyOf(productIdsByRecipe);
+        AfterCommit.run(() -> apply(current -> snapshot.forEach(current::put)));
+    }
+
+    public void removeAfterCommit(Long recipeId) {
+        AfterCommit.run(() -> apply(current -> current.remove(recipeId)));
+    }
+
+    public List<Coverage> rank(Collection<Long> ownedProductIds, int limit) {
+        lock.readLock().lock();
+        try {
+            State current = state;
+            int[] counts = counters.get();
+            if (counts.length < current.recipeIds.length) {
+                counts = new int[current.recipeIds.length];
+                counters.set(counts);
+            }
+
+            IntList touched = new IntList();
+            for (Long productId : ownedProductIds.stream().distinct().toList()) {
+                IntList postings = current.postingsByProduct.get(productId);
+                if (postings == null) {
+                    continue;
+                }
+                for (int i = 0; i < postings.size; i++) {
+                    int slot = postings.items[i];
+                    if (counts[slot]++ == 0) {
+                        touched.add(slot);
+                    }
+                }
+            }
+
+            // Bounded heap with the worst kept slot at the root, sorted in place afterwards
+            int[] top = new int[Math.min(limit, touched.size)];
+            int topSize = 0;
+            for (int i = 0; i < touched.size; i++) {
+                int slot = touched.items[i];
+                if (topSize < top.length) {
+                    top[topSize] = slot;
+                    siftUp(top, topSize++, current, counts);
+                } else if (top.length > 0 && compare(slot, top[0], current, counts) < 0) {
+                    top[0] = slot;
+                    siftDown(top, 0, topSize, current, counts);
+                }
+            }
+            for (int end = topSize - 1; end > 0; end--) {
+                swap(top, 0, end);
+                siftDown(top, 0, end, current, counts);
+            }
+
+            List<Coverage> result = new ArrayList<>(topSize);
+            for (int i = 0; i < topSize; i++) {
+                int slot = top[i];
+                result.add(new Coverage(current.recipeIds[slot], counts[slot], current.recipeSizes[slot] - counts[slot]));
+            }
+
+            for (int i = 0; i < touched.size; i++) {
+                counts[touched.items[i]] = 0;
+            }
+
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Best first: nothing missing, then fewest missing, then most owned, then lowest id
+    private static int compare(int left, int right, State state, int[] owned) {
+        int byMissing = Integer.compare(state.recipeSizes[left] - owned[left], state.recipeSizes[right] - owned[right]);
+        if (byMissing != 0) {
+            return byMissing;
+        }
+        int byOwned = Integer.compare(owned[right], owned[left]);
+        if (byOwned != 0) {
+            return byOwned;
+        }
+        return Long.compare(state.recipeIds[left], state.recipeIds[right]);
+    }
+
+    private static void siftUp(int[] heap, int index, State state, int[] owned) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (compare(heap[index], heap[parent], state, owned) <= 0) {
+                return;
+            }
+            swap(heap, index, parent);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int index, int size, State state, int[] owned) {
+        while (true) {
+            int worst = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && compare(heap[left], heap[worst], state, owned) > 0) {
+                worst = left;
+            }
+            if (right < size && compare(heap[right], heap[worst], state, owned) > 0) {
+                worst = right;
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(heap, index, worst);
+            index = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+
+    private void apply(Consumer<State> update) {
+        lock.writeLock().lock();
+        try {
+            update.accept(state);
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static class State {
+        private final Map<Long, Integer> slotByRecipeId = new HashMap<>();
+        private final Map<Long, IntList> postingsByProduct = new HashMap<>();
+        private final IntList freeSlots = new IntList();
+        // per-slot data; a free slot keeps a size of 0 and no products
+        private long[] recipeIds = new long[1024];
+        private int[] recipeSizes = new int[1024];
+        private long[][] productsBySlot = new long[1024][];
+        private int nextSlot;
+
+        private void put(Long recipeId, Collection<Long> productIds) {
+            remove(recipeId);
+
+            long[] products = productIds.stream().mapToLong(Long::longValue).distinct().toArray();
+            int slot = freeSlots.size == 0 ? nextSlot++ : freeSlots.pop();
+            if (slot >= recipeIds.length) {
+                recipeIds = Arrays.copyOf(recipeIds, recipeIds.length * 2);
+                recipeSizes = Arrays.copyOf(recipeSizes, recipeSizes.length * 2);
+                productsBySlot = Arrays.copyOf(productsBySlot, productsBySlot.length * 2);
+            }
+
+            recipeIds[slot] = recipeId;
+            recipeSizes[slot] = products.length;
+            slotByRecipeId.put(recipeId, slot);
+            productsBySlot[slot] = products;
+            for (long productId : products) {
+                postingsByProduct.computeIfAbsent(productId, id -> new IntList()).add(slot);
+            }
+        }
+
+        private void remove(Long recipeId) {
+            Integer slot = slotByRecipeId.remove(recipeId);
+            if (slot == null) {
+                return;
+            }
+
+            for (long productId : productsBySlot[slot]) {
+                IntList postings = postingsByProduct.get(productId);
+                postings.remove(slot);
+                if (postings.size == 0) {
+                    postingsByProduct.remove(productId);
+                }
+            }
+            recipeSizes[slot] = 0;
+            productsBySlot[slot] = null;
+            freeSlots.add(slot);
+        }
+    }
+
+    private static class IntList {
+        private int[] items = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+
+        private int pop() {
+            return items[--size];
+        }
+
+        private void remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (items[i] == value) {
+                    items[i] = items[--size];
+                    return;
+                }
+            }
+        }
+    }
+}
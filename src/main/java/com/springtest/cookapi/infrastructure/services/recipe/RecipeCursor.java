@@ -0,0 +1,65 @@
+package com.springtest.cookapi.infrastructure.services.recipe;
+
+import com.springtest.cookapi.domain.entities.Recipe;
+import com.springtest.cookapi.domain.enums.Difficulty;
+import com.springtest.cookapi.domain.enums.SortBy;
+import com.springtest.cookapi.domain.enums.SortDirection;
+import com.springtest.cookapi.domain.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public record RecipeCursor(
+        SortBy sortBy,
+        SortDirection sortDirection,
+        Long id,
+        String value
+) {
+    private static final String SEPARATOR = "|";
+
+    public static RecipeCursor of(SortBy sortBy, SortDirection sortDirection, Recipe recipe) {
+        String value = switch (sortBy) {
+            case NAME -> recipe.getName();
+            case CALORIES -> recipe.getCalories().toString();
+            case DIFFICULTY -> recipe.getDifficulty().name();
+        };
+        return new RecipeCursor(sortBy, sortDirection, recipe.getId(), value);
+    }
+
+    public static RecipeCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\|", 4);
+            if (parts.length != 4) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            var recipeCursor = new RecipeCursor(
+                    SortBy.valueOf(parts[0]),
+                    SortDirection.valueOf(parts[1]),
+                    Long.valueOf(parts[2]),
+                    parts[3]
+            );
+            recipeCursor.keyValue();
+            return recipeCursor;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = sortBy.name() + SEPARATOR + sortDirection.name() + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Object keyValue() {
+        return switch (sortBy) {
+            case NAME -> value;
+            case CALORIES -> Double.valueOf(value);
+            case DIFFICULTY -> Difficulty.valueOf(value);
+        };
+    }
+
+    public boolean matches(SortBy sortBy, SortDirection sortDirection) {
+        return this.sortBy == sortBy && this.sortDirection == sortDirection;
+    }
+}
@@ -0,0 +1,194 @@
+package com.springtest.cookapi.infrastructure.services.recipe;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springtest.cookapi.domain.enums.ExportFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Writes every recipe as NDJSON (RecipeDto per line) or CSV from one consistent snapshot: a read-only REPEATABLE READ
+// transaction whose rows are pulled through a server-side cursor (PostgreSQL uses one when a fetch size is set inside
+// a transaction) and written as they arrive. Nothing is kept per row and no entities are created, so heap use does not
+// grow with the catalogue.
+@Service
+@Slf4j
+public class RecipeExportServiceImpl implements IRecipeExportService {
+    private static final String SELECT_RECIPES = """
+            SELECT r.id, r.name, r.description, r.difficulty, r.calories, r.rating, r.image_url, r.version,
+                   u.id AS author_id, u.full_name AS author_fullname, u.username AS author_username,
+                   coalesce(pr.products, '[]') AS products
+            FROM recipe r
+            JOIN app_user u ON u.id = r.user_id
+            LEFT JOIN LATERAL (
+                SELECT cast(json_agg(json_build_object('id', p.id, 'name', p.name) ORDER BY p.id) AS text) AS products
+                FROM recipe_products rp
+                JOIN product p ON p.id = rp.product_id
+                WHERE rp.recipe_id = r.id
+            ) pr ON true
+            ORDER BY r.id
+            """;
+    private static final String CSV_HEADER = "id,name,description,difficulty,calories,rating,imageUrl,authorId,authorUsername,products";
+
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public RecipeExportServiceImpl(ObjectMapper objectMapper,
+                                   DataSource dataSource,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.recipe-export.fetch-size:1000}") int fetchSize) {
+        this.objectMapper = objectMapper;
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    // Returns the number of exported recipes; out is flushed but not closed
+    @Override
+    public long exportRecipes(ExportFormat format, OutputStream out) throws IOException {
+        RowWriter writer = format == ExportFormat.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+        long[] count = {0};
+        try {
+            transactionTemplate.executeWithoutResult(status -> cursorJdbcTemplate.query(SELECT_RECIPES, (RowCallbackHandler) rs -> {
+                try {
+                    writer.write(rs);
+                } catch (IOException e) {
+                    // typically the client went away; unwinding closes the cursor and ends the transaction
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+        log.info("Exported {} recipes as {}", count[0], format);
+        return count[0];
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    private class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        // same fields as RecipeDto; the products array is copied as the database built it
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong("id"));
+            generator.writeStringField("name", rs.getString("name"));
+            generator.writeStringField("description", rs.getString("description"));
+            generator.writeStringField("difficulty", rs.getString("difficulty"));
+            writeNullableNumber("calories", rs.getDouble("calories"), rs.wasNull());
+            writeNullableNumber("rating", rs.getDouble("rating"), rs.wasNull());
+            generator.writeStringField("imageUrl", rs.getString("image_url"));
+            generator.writeFieldName("products");
+            generator.writeRawValue(rs.getString("products"));
+            generator.writeObjectFieldStart("author");
+            generator.writeNumberField("id", rs.getLong("author_id"));
+            generator.writeStringField("fullname", rs.getString("author_fullname"));
+            generator.writeStringField("username", rs.getString("author_username"));
+            generator.writeEndObject();
+            generator.writeNumberField("version", rs.getLong("version"));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private void writeNullableNumber(String field, double value, boolean isNull) throws IOException {
+            if (isNull) {
+                generator.writeNullField(field);
+            } else {
+                generator.writeNumberField(field, value);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.writer.write(CSV_HEADER);
+            this.writer.write('\n');
+        }
+
+        // products is the same JSON array as in NDJSON, so any character in a product name survives the round trip
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            writer.write(rs.getString("id"));
+            writer.write(',');
+            writer.write(escape(rs.getString("name")));
+            writer.write(',');
+            writer.write(escape(rs.getString("description")));
+            writer.write(',');
+            writer.write(rs.getString("difficulty"));
+            writer.write(',');
+            writer.write(nullToEmpty(rs.getString("calories")));
+            writer.write(',');
+            writer.write(nullToEmpty(rs.getString("rating")));
+            writer.write(',');
+            writer.write(escape(rs.getString("image_url")));
+            writer.write(',');
+            writer.write(rs.getString("author_id"));
+            writer.write(',');
+            writer.write(escape(rs.getString("author_username")));
+            writer.write(',');
+            writer.write(escape(rs.getString("products")));
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        // RFC 4180: quote fields containing separators, quotes or line breaks and double the quotes inside
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        private static String nullToEmpty(String value) {
+            return value != null ? value : "";
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.springtest.cookapi.infrastructure.services.recipe;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springtest.cookapi.domain.dtos.product.CreateProductDto;
+import com.springtest.cookapi.domain.dtos.recipe.CreateRecipeDto;
+import com.springtest.cookapi.domain.responses.ImportResponse;
+import com.springtest.cookapi.infrastructure.repositories.ProductRepository;
+import com.springtest.cookapi.infrastructure.services.CurrentUserService;
+import com.springtest.cookapi.infrastructure.services.TableRowCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Bulk recipe import from NDJSON (one CreateRecipeDto per line), read line by line from the request body.
+// Valid lines are grouped into batches. Each batch resolves its product names against a dictionary kept for the whole
+// import (unknown names go through the same upsert as addRecipe) and writes recipe and recipe_products rows with JDBC
+// batch inserts in one transaction. Recipe ids are taken from recipe_seq in the blocks Hibernate's pooled optimizer
+// uses, so one nextval covers a whole block. A failing batch is reported on each of its lines; earlier batches stay.
+@Service
+@Slf4j
+public class RecipeImportServiceImpl implements IRecipeImportService {
+    private static final String INSERT_RECIPE = """
+            INSERT INTO recipe (id, name, description, difficulty, calories, rating_sum, rating_count, user_id)
+            VALUES (?, ?, ?, ?, ?, 0, 0, ?)
+            """;
+    private static final String INSERT_RECIPE_PRODUCT = "INSERT INTO recipe_products (recipe_id, product_id) VALUES (?, ?)";
+    private static final int NAME_MAX_LENGTH = 255;
+    private static final int DESCRIPTION_MAX_LENGTH = 5000;
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final CurrentUserService currentUserService;
+    private final RecipeCoverageIndex recipeCoverageIndex;
+    private final TableRowCounter tableRowCounter;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxReportedErrors;
+    private final int maxDictionarySize;
+    private final Counter importedLines;
+    private final Counter failedLines;
+    private final Timer batchTimer;
+    private volatile Long sequenceIncrement;
+
+    public RecipeImportServiceImpl(ObjectMapper objectMapper,
+                                   Validator validator,
+                                   JdbcTemplate jdbcTemplate,
+                                   ProductRepository productRepository,
+                                   CurrentUserService currentUserService,
+                                   RecipeCoverageIndex recipeCoverageIndex,
+                                   TableRowCounter tableRowCounter,
+                                   CacheManager cacheManager,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.recipe-import.batch-size:1000}") int batchSize,
+                                   @Value("${app.recipe-import.max-reported-errors:100}") int maxReportedErrors,
+                                   @Value("${app.recipe-import.max-dictionary-size:100000}") int maxDictionarySize) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        this.currentUserService = currentUserService;
+        this.recipeCoverageIndex = recipeCoverageIndex;
+        this.tableRowCounter = tableRowCounter;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+        this.maxDictionarySize = maxDictionarySize;
+        this.importedLines = Counter.builder("recipe.import.lines").tag("result", "imported").register(meterRegistry);
+        this.failedLines = Counter.builder("recipe.import.lines").tag("result", "failed").register(meterRegistry);
+        this.batchTimer = Timer.builder("recipe.import.batch").register(meterRegistry);
+    }
+
+    @Override
+    public ImportResponse importRecipes(InputStream ndjson) throws IOException {
+        Long userId = currentUserService.getCurrentUserId();
+        long start = System.nanoTime();
+        ImportState state = new ImportState();
+        List<ParsedLine> batch = new ArrayList<>(batchSize);
+
+        try (var reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                CreateRecipeDto recipe = parse(line, lineNumber, state);
+                if (recipe != null) {
+                    batch.add(new ParsedLine(lineNumber, recipe));
+                }
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch, userId, state);
+                    batch.clear();
+                }
+            }
+            // only a fully read input flushes its last batch; after a read error the partial batch is dropped
+            if (!batch.isEmpty()) {
+                writeBatch(batch, userId, state);
+            }
+        } finally {
+            if (state.imported > 0) {
+                afterImport();
+            }
+        }
+
+        long durationNanos = System.nanoTime() - start;
+        double recipesPerSecond = durationNanos > 0 ? state.imported * 1_000_000_000.0 / durationNanos : 0.0;
+        log.info("Imported {} recipes ({} lines failed) in {} ms", state.imported, state.failed, durationNanos / 1_000_000);
+        return new ImportResponse(state.imported, state.failed, state.errors, durationNanos / 1_000_000, recipesPerSecond);
+    }
+
+    private CreateRecipeDto parse(String line, long lineNumber, ImportState state) {
+        CreateRecipeDto recipe;
+        try {
+            recipe = objectMapper.readValue(line, CreateRecipeDto.class);
+        } catch (JsonProcessingException e) {
+            state.fail(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+            return null;
+        }
+        if (recipe == null) {
+            state.fail(lineNumber, "Recipe must not be null");
+            return null;
+        }
+
+        var violations = validator.validate(recipe);
+        if (!violations.isEmpty()) {
+            state.fail(lineNumber, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return null;
+        }
+        // column limits are checked here so that one oversized line does not fail its whole batch
+        if (recipe.name().length() > NAME_MAX_LENGTH
+                || recipe.description().length() > DESCRIPTION_MAX_LENGTH
+                || recipe.products().stream().anyMatch(product -> product.name().trim().length() > NAME_MAX_LENGTH)) {
+            state.fail(lineNumber, "Names are limited to " + NAME_MAX_LENGTH + " and descriptions to " + DESCRIPTION_MAX_LENGTH + " characters");
+            return null;
+        }
+        return recipe;
+    }
+
+    private void writeBatch(List<ParsedLine> batch, Long userId, ImportState state) {
+        long start = System.nanoTime();
+        BatchResult result;
+        try {
+            result = transactionTemplate.execute(status -> insertBatch(batch, userId, state.productIds));
+        } catch (DataAccessException e) {
+            log.warn("Recipe import batch of {} lines failed", batch.size(), e);
+            String message = "Batch failed: " + e.getMostSpecificCause().getMessage();
+            batch.forEach(parsed -> state.fail(parsed.lineNumber(), message));
+            return;
+        } finally {
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        // products inserted by a rolled back batch must not be remembered, so the dictionary is updated after commit
+        if (state.productIds.size() + result.resolvedProducts().size() > maxDictionarySize) {
+            state.productIds.clear();
+        }
+        state.productIds.putAll(result.resolvedProducts());
+        result.unresolvedLines().forEach((lineNumber, productName) ->
+                state.fail(lineNumber, "Product " + productName + " could not be resolved"));
+        int written = batch.size() - result.unresolvedLines().size();
+        state.imported += written;
+        importedLines.increment(written);
+    }
+
+    private BatchResult insertBatch(List<ParsedLine> batch, Long userId, Map<String, Long> dictionary) {
+        Map<String, Long> resolved = resolveProducts(batch, dictionary);
+
+        // a product that vanished between the lookup and the insert leaves its lines unresolved; they are skipped
+        // and reported instead of failing the rest of the batch
+        List<ParsedLine> lines = new ArrayList<>(batch.size());
+        List<List<Long>> productIdsByLine = new ArrayList<>(batch.size());
+        Map<Long, String> unresolvedLines = new LinkedHashMap<>();
+        for (ParsedLine parsed : batch) {
+            List<Long> productIds = new ArrayList<>();
+            for (String normalizedName : normalizedNames(parsed.recipe().products())) {
+                Long productId = resolved.getOrDefault(normalizedName, dictionary.get(normalizedName));
+                if (productId == null) {
+                    unresolvedLines.put(parsed.lineNumber(), normalizedName);
+                    break;
+                }
+                productIds.add(productId);
+            }
+            if (!unresolvedLines.containsKey(parsed.lineNumber())) {
+                lines.add(parsed);
+                productIdsByLine.add(productIds);
+            }
+        }
+        if (lines.isEmpty()) {
+            return new BatchResult(resolved, unresolvedLines);
+        }
+
+        long[] recipeIds = allocateRecipeIds(lines.size());
+        jdbcTemplate.batchUpdate(INSERT_RECIPE, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                CreateRecipeDto recipe = lines.get(i).recipe();
+                ps.setLong(1, recipeIds[i]);
+                ps.setString(2, recipe.name());
+                ps.setString(3, recipe.description());
+                ps.setString(4, recipe.difficulty().name());
+                ps.setDouble(5, recipe.calories());
+                ps.setLong(6, userId);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lines.size();
+            }
+        });
+
+        List<long[]> recipeProducts = new ArrayList<>();
+        Map<Long, List<Long>> productIdsByRecipe = new HashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            for (Long productId : productIdsByLine.get(i)) {
+                recipeProducts.add(new long[]{recipeIds[i], productId});
+            }
+            productIdsByRecipe.put(recipeIds[i], productIdsByLine.get(i));
+        }
+        jdbcTemplate.batchUpdate(INSERT_RECIPE_PRODUCT, recipeProducts, recipeProducts.size(), (ps, row) -> {
+            ps.setLong(1, row[0]);
+            ps.setLong(2, row[1]);
+        });
+
+        recipeCoverageIndex.indexAllAfterCommit(productIdsByRecipe);
+        return new BatchResult(resolved, unresolvedLines);
+    }
+
+    // Ids of the batch's product names missing from the dictionary, inserting the ones that do not exist yet
+    private Map<String, Long> resolveProducts(List<ParsedLine> batch, Map<String, Long> dictionary) {
+        Map<String, String> unknownNames = new LinkedHashMap<>();
+        for (ParsedLine parsed : batch) {
+            for (CreateProductDto product : parsed.recipe().products()) {
+                String name = product.name().trim();
+                String normalizedName = normalizeProductName(name);
+                if (!dictionary.containsKey(normalizedName)) {
+                    unknownNames.putIfAbsent(normalizedName, name);
+                }
+            }
+        }
+
+        Map<String, Long> resolved = new HashMap<>();
+        if (unknownNames.isEmpty()) {
+            return resolved;
+        }
+        findExisting(unknownNames.keySet(), resolved);
+
+        var namesToInsert = unknownNames.entrySet().stream()
+                .filter(entry -> !resolved.containsKey(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .toArray(String[]::new);
+        if (namesToInsert.length > 0) {
+            productRepository.insertMissing(namesToInsert)
+                    .forEach(product -> resolved.put(normalizeProductName(product.getName()), product.getId()));
+
+            // Names skipped by ON CONFLICT were inserted by a concurrent writer in the meantime
+            var insertedConcurrently = unknownNames.keySet().stream()
+                    .filter(normalizedName -> !resolved.containsKey(normalizedName))
+                    .toList();
+            findExisting(insertedConcurrently, resolved);
+        }
+        return resolved;
+    }
+
+    private void findExisting(Collection<String> normalizedNames, Map<String, Long> resolved) {
+        List<String> names = List.copyOf(normalizedNames);
+        for (int from = 0; from < names.size(); from += LOOKUP_CHUNK_SIZE) {
+            productRepository.findByNormalizedNameIn(names.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, names.size())))
+                    .forEach(product -> resolved.put(normalizeProductName(product.getName()), product.getId()));
+        }
+    }
+
+    // With the pooled optimizer every nextval reserves the block (value - increment, value]
+    private long[] allocateRecipeIds(int count) {
+        long increment = sequenceIncrement();
+        long[] ids = new long[count];
+        int filled = 0;
+        long blocks = (count + increment - 1) / increment;
+        while (filled < count) {
+            List<Long> values = jdbcTemplate.queryForList(
+                    "SELECT nextval('recipe_seq') FROM generate_series(1, ?)", Long.class, blocks);
+            for (long hi : values) {
+                for (long id = Math.max(1, hi - increment + 1); id <= hi && filled < count; id++) {
+                    ids[filled++] = id;
+                }
+            }
+            // only a fresh sequence, whose first block is a single id, needs another round
+            blocks = 1;
+        }
+        return ids;
+    }
+
+    private long sequenceIncrement() {
+        Long increment = sequenceIncrement;
+        if (increment == null) {
+            increment = jdbcTemplate.queryForObject(
+                    "SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = 'recipe_seq'",
+                    Long.class);
+            sequenceIncrement = increment;
+        }
+        return increment;
+    }
+
+    private void afterImport() {
+        tableRowCounter.invalidate("recipe");
+        Stream.of("all-recipes", "recipe-search")
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .forEach(Cache::clear);
+    }
+
+    private Collection<String> normalizedNames(List<CreateProductDto> products) {
+        return products.stream()
+                .map(product -> normalizeProductName(product.name()))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private String normalizeProductName(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record ParsedLine(long lineNumber, CreateRecipeDto recipe) {}
+
+    // unresolvedLines maps the line number of each skipped line to the product name it failed on
+    private record BatchResult(Map<String, Long> resolvedProducts, Map<Long, String> unresolvedLines) {}
+
+    private class ImportState {
+        private final Map<String, Long> productIds = new HashMap<>();
+        private final List<ImportResponse.LineError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        private void fail(long lineNumber, String message) {
+            failed++;
+            failedLines.increment();
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportResponse.LineError(lineNumber, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.springtest.cookapi.infrastructure.services.recipe;
+
+import com.springtest.cookapi.domain.entities.Recipe;
+import com.springtest.cookapi.domain.enums.SortBy;
+import com.springtest.cookapi.domain.enums.SortDirection;
+import com.springtest.cookapi.infrastructure.cache.CacheTtlProperties;
+import com.springtest.cookapi.infrastructure.services.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// Tags every cached "all-recipes" page with the recipes and sort order it contains, so that writes evict
+// only the pages they can affect instead of the whole cache. Evictions run once the writing transaction commits.
+//
+// Tags are Redis sorted sets scored by expiry time, next to the pages they describe:
+//   recipe:{id}   pages containing the recipe (content changes: reviews, description, image, products)
+//   sort:{SORT}   all pages of one sort order (a sort key of some recipe changed)
+//   offset        offset pages, which carry totals and shift on every insert or delete
+//   range:{SORT}  keyset pages as "lo|hi|cacheKey", the sort key range they cover ("" is unbounded)
+@Component
+@Slf4j
+public class RecipeListCacheIndex {
+    private static final String CACHE_NAME = "all-recipes";
+    private static final String PREFIX = "all-recipes-tags::";
+    private static final String SEPARATOR = "|";
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheManager cacheManager;
+    private final Duration ttl;
+
+    public RecipeListCacheIndex(StringRedisTemplate redisTemplate,
+                                CacheManager cacheManager,
+                                CacheProperties cacheProperties,
+                                CacheTtlProperties cacheTtlProperties) {
+        this.redisTemplate = redisTemplate;
+        this.cacheManager = cacheManager;
+        Duration cacheTtl = cacheTtlProperties.ttlOrDefault(CACHE_NAME, cacheProperties.getRedis().getTimeToLive());
+        this.ttl = cacheTtl != null && !cacheTtl.isZero() ? cacheTtl : Duration.ofHours(1);
+    }
+
+    public void registerOffsetPage(String cacheKey, SortBy sortBy, List<Long> recipeIds) {
+        register(cacheKey, sortBy, recipeIds, offsetKey(), cacheKey);
+    }
+
+    // fromValue is the cursor's sort key (null on the first page), toValue the last row's key (null when there is no next page)
+    public void registerKeysetPage(String cacheKey, SortBy sortBy, SortDirection sortDirection, List<Long> recipeIds,
+                                   String fromValue, String toValue) {
+        String lo = sortDirection == SortDirection.ASC ? fromValue : toValue;
+        String hi = sortDirection == SortDirection.ASC ? toValue : fromValue;
+        // names are ordered by the database collation, which Java cannot reproduce, so name pages cover everything
+        if (sortBy == SortBy.NAME || lo == null) {
+            lo = "";
+        }
+        if (sortBy == SortBy.NAME || hi == null) {
+            hi = "";
+        }
+        register(cacheKey, sortBy, recipeIds, rangeKey(sortBy), lo + SEPARATOR + hi + SEPARATOR + cacheKey);
+    }
+
+    // Recipe content changed but its position in every sort order did not
+    public void evictRecipe(Long recipeId) {
+        evict(() -> members(recipeKey(recipeId)));
+    }
+
+    public void evictUpdated(Long recipeId, Collection<SortBy> changedSortKeys) {
+        List<SortBy> sortKeys = List.copyOf(changedSortKeys);
+        evict(() -> {
+            Set<String> keys = members(recipeKey(recipeId));
+            sortKeys.forEach(sortBy -> keys.addAll(members(sortKey(sortBy))));
+            return keys;
+        });
+    }
+
+    public void evictInserted(Recipe recipe) {
+        Map<SortBy, String> values = new EnumMap<>(SortBy.class);
+        for (SortBy sortBy : SortBy.values()) {
+            values.put(sortBy, RecipeCursor.of(sortBy, SortDirection.ASC, recipe).value());
+        }
+        evict(() -> {
+            Set<String> keys = members(offsetKey());
+            for (SortBy sortBy : SortBy.values()) {
+                String value = values.get(sortBy);
+                for (String range : members(rangeKey(sortBy))) {
+                    String[] parts = range.split("\\|", 3);
+                    if (covers(sortBy, parts[0], parts[1], value)) {
+                        keys.add(parts[2]);
+                        redisTemplate.opsForZSet().remove(rangeKey(sortBy), range);
+                    }
+                }
+            }
+            redisTemplate.delete(offsetKey());
+            return keys;
+        });
+    }
+
+    public void evictDeleted(Long recipeId) {
+        evict(() -> {
+            Set<String> keys = members(offsetKey());
+            keys.addAll(members(recipeKey(recipeId)));
+            redisTemplate.delete(List.of(offsetKey(), recipeKey(recipeId)));
+            return keys;
+        });
+    }
+
+    private void register(String cacheKey, SortBy sortBy, List<Long> recipeIds, String modeKey, String modeMember) {
+        double expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        List<String> tagKeys = new ArrayList<>();
+        recipeIds.forEach(id -> tagKeys.add(recipeKey(id)));
+        String sortKey = sortKey(sortBy);
+
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    var zSet = operations.opsForZSet();
+                    for (String tagKey : tagKeys) {
+                        zSet.add(tagKey, cacheKey, expiresAt);
+                        operations.expire(tagKey, ttl);
+                    }
+                    // sort and mode tags are long-lived, so drop members whose pages have expired
+                    for (String tagKey : List.of(sortKey, modeKey)) {
+                        zSet.add(tagKey, tagKey.equals(modeKey) ? modeMember : cacheKey, expiresAt);
+                        zSet.removeRangeByScore(tagKey, 0, System.currentTimeMillis());
+                        operations.expire(tagKey, ttl);
+                    }
+                    return null;
+                }
+            });
+        } catch (RuntimeException e) {
+            // an untagged page is only served until its TTL, but say so
+            log.warn("Failed to tag cached recipe page {}", cacheKey, e);
+        }
+    }
+
+    // Tags are read at commit too, so pages cached while the transaction ran are found as well
+    private void evict(Supplier<Set<String>> affectedKeys) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            try {
+                affectedKeys.get().forEach(cache::evict);
+            } catch (RuntimeException e) {
+                log.warn("Targeted eviction failed, clearing {}", CACHE_NAME, e);
+                cache.clear();
+            }
+        });
+    }
+
+    private Set<String> members(String tagKey) {
+        Set<String> members = redisTemplate.opsForZSet().rangeByScore(tagKey, System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+        return members != null ? new HashSet<>(members) : new HashSet<>();
+    }
+
+    // Bounds are inclusive because ties on the sort key are broken by id, which the range does not record
+    private static boolean covers(SortBy sortBy, String lo, String hi, String value) {
+        return (lo.isEmpty() || compare(sortBy, lo, value) <= 0)
+                && (hi.isEmpty() || compare(sortBy, value, hi) <= 0);
+    }
+
+    private static int compare(SortBy sortBy, String left, String right) {
+        return switch (sortBy) {
+            case CALORIES -> Double.compare(Double.parseDouble(left), Double.parseDouble(right));
+            // difficulty is stored as its name, so the database orders it alphabetically
+            case DIFFICULTY, NAME -> left.compareTo(right);
+        };
+    }
+
+    private static String recipeKey(Long recipeId) {
+        return PREFIX + "recipe:" + recipeId;
+    }
+
+    private static String sortKey(SortBy sortBy) {
+        return PREFIX + "sort:" + sortBy;
+    }
+
+    private static String rangeKey(SortBy sortBy) {
+        return PREFIX + "range:" + sortBy;
+    }
+
+    private static String offsetKey() {
+        return PREFIX + "offset";
+    }
+}
@@ -0,0 +1,44 @@
+package com.springtest.cookapi.infrastructure.services.recipe;
+
+import com.springtest.cookapi.domain.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// queryHash ties the cursor to the normalized query it was issued for; ranks of another query are not comparable
+public record RecipeSearchCursor(
+        Float rank,
+        Long id,
+        String queryHash
+) {
+    public static RecipeSearchCursor of(String query, Float rank, Long id) {
+        return new RecipeSearchCursor(rank, id, hash(query));
+    }
+
+    public static RecipeSearchCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\|");
+            if (parts.length != 3) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return new RecipeSearchCursor(Float.valueOf(parts[0]), Long.valueOf(parts[1]), parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = rank + "|" + id + "|" + queryHash;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean matches(String query) {
+        return queryHash.equals(hash(query));
+    }
+
+    // String.hashCode is specified, so cursors stay valid across nodes and restarts
+    private static String hash(String query) {
+        return Integer.toHexString(query.hashCode());
+    }
+}
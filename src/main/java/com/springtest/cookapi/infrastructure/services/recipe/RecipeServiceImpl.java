@@ -2,44 +2,72 @@
 package com.springtest.cookapi.infrastructure.services.recipe;
 
 import com.springtest.cookapi.domain.dtos.recipe.CreateRecipeDto;
+import com.springtest.cookapi.domain.dtos.recipe.RecipeCoverageDto;
 import com.springtest.cookapi.domain.dtos.recipe.RecipeDto;
+import com.springtest.cookapi.domain.dtos.recipe.RecipeVersionDto;
 import com.springtest.cookapi.domain.dtos.recipe.UpdateRecipeDto;
+import com.springtest.cookapi.domain.entities.ImageDeletion;
 import com.springtest.cookapi.domain.entities.Product;
 import com.springtest.cookapi.domain.entities.Recipe;
 import com.springtest.cookapi.domain.entities.User;
 import com.springtest.cookapi.domain.enums.SortBy;
 import com.springtest.cookapi.domain.enums.SortDirection;
+import com.springtest.cookapi.domain.exceptions.BadRequestException;
 import com.springtest.cookapi.domain.exceptions.ForbiddenException;
 import com.springtest.cookapi.domain.exceptions.NotFoundException;
+import com.springtest.cookapi.domain.exceptions.PreconditionFailedException;
 import com.springtest.cookapi.domain.mappers.ProductMapper;
 import com.springtest.cookapi.domain.mappers.RecipeMapper;
+import com.springtest.cookapi.domain.requests.GetCookableRecipesRequest;
 import com.springtest.cookapi.domain.requests.GetRecipesRequest;
+import com.springtest.cookapi.domain.requests.ScrollRecipesRequest;
+import com.springtest.cookapi.domain.requests.SearchRecipesRequest;
 import com.springtest.cookapi.domain.responses.PageResponse;
+import com.springtest.cookapi.infrastructure.cache.CacheEvictions;
+import com.springtest.cookapi.infrastructure.cache.CacheKeys;
+import com.springtest.cookapi.infrastructure.cache.TwoLevelCache;
+import com.springtest.cookapi.infrastructure.repositories.ImageDeletionRepository;
 import com.springtest.cookapi.infrastructure.repositories.ProductRepository;
 import com.springtest.cookapi.infrastructure.repositories.RecipeRepository;
 import com.springtest.cookapi.infrastructure.repositories.UserRepository;
 import com.springtest.cookapi.infrastructure.services.CurrentUserService;
+import com.springtest.cookapi.infrastructure.services.TableRowCounter;
 import com.springtest.cookapi.infrastructure.services.cloudinary.ICloudinaryService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class RecipeServiceImpl implements IRecipeService{
+    private static final String RECIPE_TABLE = "recipe";
+    private static final String RECIPE_CACHE = "recipe";
+    private static final String RECIPE_VERSION_CACHE = "recipe-version";
+    private static final String RECIPE_SEARCH_CACHE = "recipe-search";
+
     private final RecipeRepository recipeRepository;
     private final ProductRepository productRepository;
     private final RecipeMapper recipeMapper;
@@ -47,10 +75,16 @@ public class RecipeServiceImpl implements IRecipeService{
     private final CurrentUserService currentUserService;
     private final UserRepository userRepository;
     private final ICloudinaryService cloudinaryService;
+    private final ImageDeletionRepository imageDeletionRepository;
+    private final RecipeCoverageIndex recipeCoverageIndex;
+    private final RecipeListCacheIndex recipeListCacheIndex;
+    private final TableRowCounter tableRowCounter;
+    private final CacheManager cacheManager;
+    private final CacheEvictions cacheEvictions;
+    private final CacheKeys cacheKeys;
 
     @Override
     @Transactional
-    @CacheEvict(value = "all-recipes", allEntries = true)
     public RecipeDto addRecipe(CreateRecipeDto createRecipeDto, MultipartFile image) throws IOException {
         Recipe recipe = recipeMapper.toRecipe(createRecipeDto);
 
@@ -73,16 +107,16 @@ public class RecipeServiceImpl implements IRecipeService{
         }
 
         var savedRecipe = recipeRepository.save(recipe);
+        recipeCoverageIndex.indexAfterCommit(savedRecipe.getId(), getProductIds(savedRecipe));
+        recipeListCacheIndex.evictInserted(savedRecipe);
+        tableRowCounter.invalidateAfterCommit(RECIPE_TABLE);
+        cacheEvictions.clearAfterCommit(RECIPE_SEARCH_CACHE);
 
         return recipeMapper.toRecipeDto(savedRecipe);
     }
 
     @Override
     @Transactional
-    @Caching(evict = {
-            @CacheEvict(value = "all-recipes", allEntries = true),
-            @CacheEvict(value = "recipe", key = "'recipe_' + #recipeId.toString()")
-    })
     public void deleteRecipe(Long recipeId) throws IOException {
         var recipeToDelete = getRecipeById(recipeId);
         String publicId = recipeToDelete.getPublicId();
@@ -93,15 +127,20 @@ public class RecipeServiceImpl implements IRecipeService{
         }
 
         recipeRepository.deleteById(recipeId);
+        recipeCoverageIndex.removeAfterCommit(recipeId);
+        recipeListCacheIndex.evictDeleted(recipeId);
+        tableRowCounter.invalidateAfterCommit(RECIPE_TABLE);
+        evictRecipeCaches(recipeId);
         if (publicId != null) {
-            cloudinaryService.deleteImageFromCloudinary(publicId);
+            // removed by ImageDeletionWorker once this transaction commits
+            imageDeletionRepository.save(ImageDeletion.of(publicId));
         }
     }
 
 
 
     @Override
-    @Cacheable(value = "all-recipes", key = "#getRecipesRequest.toString()")
+    @Cacheable(value = "all-recipes", key = "@keys.recipePage(#getRecipesRequest)", sync = true)
     public PageResponse<RecipeDto> getAllRecipes(GetRecipesRequest  getRecipesRequest) {
 
         Sort.Direction sortDirection = getRecipesRequest.sortDirection() == SortDirection.ASC ? Sort.Direction.ASC : Sort.Direction.DESC;
@@ -113,17 +152,124 @@ public class RecipeServiceImpl implements IRecipeService{
                 Sort.by(sortDirection, sortBy)
         );
 
-        var recipes = recipeRepository.findAll(pageRequest);
-        return PageResponse.of(recipes.map(recipeMapper::toRecipeDto));
+        var recipeIds = recipeRepository.findSliceOfIds(pageRequest);
+        var content = findRecipeDtos(recipeIds.getContent());
+        recipeListCacheIndex.registerOffsetPage(
+                cacheKeys.recipePage(getRecipesRequest),
+                getRecipesRequest.sortBy(),
+                content.stream().map(RecipeDto::id).toList()
+        );
+        var page = new SliceImpl<>(content, recipeIds.getPageable(), recipeIds.hasNext());
+        if (getRecipesRequest.isSlice()) {
+            return PageResponse.ofSlice(page);
+        }
+        return PageResponse.of(page, tableRowCounter.count(RECIPE_TABLE));
+    }
+
+    @Override
+    @Cacheable(value = "all-recipes", key = "@keys.keysetPage(#scrollRecipesRequest)")
+    public PageResponse<RecipeDto> scrollRecipes(ScrollRecipesRequest scrollRecipesRequest) {
+
+        Sort.Direction sortDirection = scrollRecipesRequest.sortDirection() == SortDirection.ASC ? Sort.Direction.ASC : Sort.Direction.DESC;
+        String sortBy = getSortBy(scrollRecipesRequest.sortBy());
+        Sort sort = Sort.by(sortDirection, sortBy).and(Sort.by(sortDirection, "id"));
+
+        ScrollPosition scrollPosition = ScrollPosition.keyset();
+        String fromValue = null;
+        if (scrollRecipesRequest.cursor() != null) {
+            var cursor = RecipeCursor.decode(scrollRecipesRequest.cursor());
+            if (!cursor.matches(scrollRecipesRequest.sortBy(), scrollRecipesRequest.sortDirection())) {
+                throw new BadRequestException("Cursor does not match requested sort order");
+            }
+            fromValue = cursor.value();
+            scrollPosition = ScrollPosition.forward(Map.of(sortBy, cursor.keyValue(), "id", cursor.id()));
+        }
+
+        var recipes = recipeRepository.findBy(scrollPosition, sort, Limit.of(scrollRecipesRequest.limit()));
+
+        String nextCursor = null;
+        String lastValue = null;
+        if (recipes.hasNext()) {
+            var lastRecipe = recipes.getContent().getLast();
+            var lastCursor = RecipeCursor.of(scrollRecipesRequest.sortBy(), scrollRecipesRequest.sortDirection(), lastRecipe);
+            nextCursor = lastCursor.encode();
+            lastValue = lastCursor.value();
+        }
+
+        recipeListCacheIndex.registerKeysetPage(
+                cacheKeys.keysetPage(scrollRecipesRequest),
+                scrollRecipesRequest.sortBy(),
+                scrollRecipesRequest.sortDirection(),
+                recipes.map(Recipe::getId).getContent(),
+                fromValue,
+                lastValue
+        );
+
+        return PageResponse.ofCursor(recipes.map(recipeMapper::toRecipeDto).getContent(), scrollRecipesRequest.limit(), recipes.hasNext(), nextCursor);
+    }
+
+    @Override
+    @Cacheable(value = "recipe-search", key = "@keys.search(#searchRecipesRequest)")
+    public PageResponse<RecipeDto> searchRecipes(SearchRecipesRequest searchRecipesRequest) {
+        int limit = searchRecipesRequest.limit();
+
+        List<RecipeRepository.SearchHit> hits;
+        if (searchRecipesRequest.cursor() == null) {
+            hits = recipeRepository.search(searchRecipesRequest.query(), limit + 1);
+        }
+        else {
+            var cursor = RecipeSearchCursor.decode(searchRecipesRequest.cursor());
+            if (!cursor.matches(searchRecipesRequest.query())) {
+                throw new BadRequestException("Cursor does not match requested query");
+            }
+            hits = recipeRepository.searchAfter(searchRecipesRequest.query(), cursor.rank(), cursor.id(), limit + 1);
+        }
+
+        boolean hasNext = hits.size() > limit;
+        if (hasNext) {
+            hits = hits.subList(0, limit);
+        }
+
+        var content = findRecipesWithDetails(hits.stream().map(RecipeRepository.SearchHit::getId).toList())
+                .stream()
+                .map(recipeMapper::toRecipeDto)
+                .toList();
+
+        String nextCursor = null;
+        if (hasNext) {
+            var lastHit = hits.getLast();
+            nextCursor = RecipeSearchCursor.of(searchRecipesRequest.query(), lastHit.getRank(), lastHit.getId()).encode();
+        }
+
+        return PageResponse.ofCursor(content, limit, hasNext, nextCursor);
+    }
+
+    @Override
+    public List<RecipeCoverageDto> getCookableRecipes(GetCookableRecipesRequest getCookableRecipesRequest) {
+        var ownedProductIds = productRepository.findByNormalizedNameIn(getCookableRecipesRequest.products().stream().map(this::normalizeProductName).toList())
+                .stream()
+                .map(Product::getId)
+                .toList();
+
+        var coverage = recipeCoverageIndex.rank(ownedProductIds, getCookableRecipesRequest.limit());
+
+        var recipesById = recipeRepository.findWithProductsAndUserByIdIn(coverage.stream().map(RecipeCoverageIndex.Coverage::recipeId).toList())
+                .stream()
+                .collect(Collectors.toMap(Recipe::getId, Function.identity()));
+
+        return coverage.stream()
+                .filter(recipeCoverage -> recipesById.containsKey(recipeCoverage.recipeId()))
+                .map(recipeCoverage -> new RecipeCoverageDto(
+                        recipeMapper.toRecipeDto(recipesById.get(recipeCoverage.recipeId())),
+                        recipeCoverage.ownedProducts(),
+                        recipeCoverage.missingProducts()
+                ))
+                .toList();
     }
 
     @Override
     @Transactional
-    @Caching(evict = {
-            @CacheEvict(value = "all-recipes", allEntries = true),
-            @CacheEvict(value = "recipe", key = "'recipe_' + #recipeId.toString()")
-    })
-    public RecipeDto updateRecipe(Long recipeId, UpdateRecipeDto updateRecipeDto, MultipartFile image) throws IOException {
+    public RecipeDto updateRecipe(Long recipeId, UpdateRecipeDto updateRecipeDto, MultipartFile image, Long expectedVersion) throws IOException {
         var recipeToModify = getRecipeById(recipeId);
 
         var currentUserId = currentUserService.getCurrentUserId();
@@ -131,6 +277,13 @@ public class RecipeServiceImpl implements IRecipeService{
             throw new ForbiddenException("You are not allowed to modify this recipe");
         }
 
+        // checked before the image upload; a writer racing past this check fails on the versioned UPDATE instead
+        if (expectedVersion != null && !expectedVersion.equals(recipeToModify.getVersion())) {
+            throw new PreconditionFailedException("Recipe with id " + recipeId + " is at version " + recipeToModify.getVersion() + ", not " + expectedVersion);
+        }
+
+        var sortKeysBefore = getSortKeys(recipeToModify);
+
         if (updateRecipeDto.name() != null) {
             recipeToModify.setName(updateRecipeDto.name());
         }
@@ -151,7 +304,7 @@ public class RecipeServiceImpl implements IRecipeService{
 
         if (image != null) {
             if (recipeToModify.getPublicId() != null) {
-                cloudinaryService.deleteImageFromCloudinary(recipeToModify.getPublicId());
+                imageDeletionRepository.save(ImageDeletion.of(recipeToModify.getPublicId()));
             }
             var uploadResult = cloudinaryService.addImageToCloudinary(image);
             String publicId = uploadResult.get("public_id").toString();
@@ -161,17 +314,129 @@ public class RecipeServiceImpl implements IRecipeService{
             recipeToModify.setImageUrl(imageUrl);
         }
 
-        var savedRecipe = recipeRepository.save(recipeToModify);
+        // flushed here so the returned DTO carries the incremented version
+        var savedRecipe = recipeRepository.saveAndFlush(recipeToModify);
+        recipeCoverageIndex.indexAfterCommit(savedRecipe.getId(), getProductIds(savedRecipe));
+
+        var sortKeysAfter = getSortKeys(savedRecipe);
+        var changedSortKeys = Arrays.stream(SortBy.values())
+                .filter(sortBy -> !sortKeysBefore.get(sortBy).equals(sortKeysAfter.get(sortBy)))
+                .toList();
+        recipeListCacheIndex.evictUpdated(recipeId, changedSortKeys);
+        evictRecipeCaches(recipeId);
+
         return recipeMapper.toRecipeDto(savedRecipe);
     }
 
     @Override
-    @Cacheable(value = "recipe", key = "'recipe_' + #recipeId.toString()")
+    @Cacheable(value = "recipe", key = "@keys.recipe(#recipeId)", sync = true)
     public RecipeDto getRecipeDtoById(Long recipeId) {
-        var recipe = getRecipeById(recipeId);
+        var recipe = recipeRepository.findWithProductsAndUserById(recipeId)
+                .orElseThrow(() -> new NotFoundException("Recipe with id " + recipeId + " not found"));
         return recipeMapper.toRecipeDto(recipe);
     }
 
+    // Conditional GETs compare against this small entry and only read the "recipe" entry when the version changed
+    @Override
+    @Cacheable(value = "recipe-version", key = "@keys.recipe(#recipeId)", sync = true)
+    public RecipeVersionDto getRecipeVersion(Long recipeId) {
+        var version = recipeRepository.findVersionById(recipeId)
+                .orElseThrow(() -> new NotFoundException("Recipe with id " + recipeId + " not found"));
+        return new RecipeVersionDto(recipeId, version);
+    }
+
+    // Batch counterpart of getRecipeDtoById sharing its "recipe" cache entries: cached recipes come from L1 or one MGET,
+    // the rest from one query, and are written back. Results follow the request order; unknown ids are left out
+    @Override
+    public List<RecipeDto> getRecipesByIds(List<Long> recipeIds) {
+        var distinctIds = recipeIds.stream().distinct().toList();
+        var cache = cacheManager.getCache(RECIPE_CACHE);
+        Map<String, Object> cached = new HashMap<>();
+        if (cache instanceof TwoLevelCache twoLevelCache) {
+            cached = twoLevelCache.getAll(distinctIds.stream().map(cacheKeys::recipe).toList());
+        } else if (cache != null) {
+            for (Long recipeId : distinctIds) {
+                var wrapper = cache.get(cacheKeys.recipe(recipeId));
+                if (wrapper != null && wrapper.get() != null) {
+                    cached.put(cacheKeys.recipe(recipeId), wrapper.get());
+                }
+            }
+        }
+
+        Map<Long, RecipeDto> recipesById = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long recipeId : distinctIds) {
+            if (cached.get(cacheKeys.recipe(recipeId)) instanceof RecipeDto recipeDto) {
+                recipesById.put(recipeId, recipeDto);
+            } else {
+                missingIds.add(recipeId);
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            Map<String, RecipeDto> loaded = new HashMap<>();
+            Map<String, RecipeVersionDto> loadedVersions = new HashMap<>();
+            recipeRepository.findWithProductsAndUserByIdIn(missingIds).forEach(recipe -> {
+                var recipeDto = recipeMapper.toRecipeDto(recipe);
+                recipesById.put(recipe.getId(), recipeDto);
+                loaded.put(cacheKeys.recipe(recipe.getId()), recipeDto);
+                loadedVersions.put(cacheKeys.recipe(recipe.getId()), new RecipeVersionDto(recipe.getId(), recipe.getVersion()));
+            });
+            // versions go along so conditional GETs of these recipes do not have to query them
+            putAll(cache, loaded);
+            putAll(cacheManager.getCache(RECIPE_VERSION_CACHE), loadedVersions);
+        }
+
+        return distinctIds.stream()
+                .map(recipesById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static void putAll(Cache cache, Map<String, ?> values) {
+        if (cache instanceof TwoLevelCache twoLevelCache) {
+            twoLevelCache.putAll(values);
+        } else if (cache != null) {
+            values.forEach(cache::put);
+        }
+    }
+
+    private void evictRecipeCaches(Long recipeId) {
+        cacheEvictions.clearAfterCommit(RECIPE_SEARCH_CACHE);
+        cacheEvictions.evictAfterCommit(RECIPE_CACHE, cacheKeys.recipe(recipeId));
+        cacheEvictions.evictAfterCommit(RECIPE_VERSION_CACHE, cacheKeys.recipe(recipeId));
+    }
+
+    // Same as findRecipesWithDetails, but reads DTOs straight from SQL without creating managed entities
+    private List<RecipeDto> findRecipeDtos(List<Long> recipeIds) {
+        if (recipeIds.isEmpty()) {
+            return List.of();
+        }
+        var rowsById = recipeRepository.findRowsByIdIn(recipeIds)
+                .stream()
+                .collect(Collectors.toMap(RecipeRepository.RecipeRow::getId, Function.identity()));
+        return recipeIds.stream()
+                .map(rowsById::get)
+                .filter(Objects::nonNull)
+                .map(recipeMapper::toRecipeDto)
+                .toList();
+    }
+
+    // Loads the recipes with their products and authors in one query, in the order of the given ids;
+    // ids deleted in the meantime are skipped
+    private List<Recipe> findRecipesWithDetails(List<Long> recipeIds) {
+        if (recipeIds.isEmpty()) {
+            return List.of();
+        }
+        var recipesById = recipeRepository.findWithProductsAndUserByIdIn(recipeIds)
+                .stream()
+                .collect(Collectors.toMap(Recipe::getId, Function.identity()));
+        return recipeIds.stream()
+                .map(recipesById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
 
     private Recipe getRecipeById(Long recipeId) throws NotFoundException {
         Optional<Recipe> recipe = recipeRepository.findById(recipeId);
@@ -181,6 +446,18 @@ public class RecipeServiceImpl implements IRecipeService{
         return recipe.get();
     }
 
+    private Map<SortBy, String> getSortKeys(Recipe recipe) {
+        Map<SortBy, String> sortKeys = new EnumMap<>(SortBy.class);
+        for (SortBy sortBy : SortBy.values()) {
+            sortKeys.put(sortBy, RecipeCursor.of(sortBy, SortDirection.ASC, recipe).value());
+        }
+        return sortKeys;
+    }
+
+    private List<Long> getProductIds(Recipe recipe) {
+        return recipe.getProductList().stream().map(Product::getId).toList();
+    }
+
     private String getSortBy(SortBy sortBy) {
         return switch (sortBy) {
             case NAME -> "name";
@@ -190,31 +467,42 @@ public class RecipeServiceImpl implements IRecipeService{
     }
 
     private List<Product> addNotExistingProducts(List<Product> newProducts) {
-        List<Product> allProducts = productRepository.findAll();
-
-        List<Product> productsToSave = new ArrayList<>();
-        List<Product> existingProducts = new ArrayList<>();
-
-        Set<String> allProductNames = allProducts.stream().map(Product::getName).collect(Collectors.toSet());
-
+        Map<String, String> namesByNormalizedName = new LinkedHashMap<>();
         for (Product product : newProducts) {
-            if (allProductNames.contains(product.getName())) {
-                var existingProduct = allProducts.stream().filter(p -> p.getName().equals(product.getName())).findFirst().orElse(null);
-                if (existingProduct != null) {
-                    existingProducts.add(existingProduct);
-                }
-            }
-            else {
-                productsToSave.add(product);
-            }
+            String name = product.getName().trim();
+            namesByNormalizedName.putIfAbsent(normalizeProductName(name), name);
         }
 
-        var savedProducts = productRepository.saveAll(productsToSave);
+        Map<String, Product> productsByNormalizedName = new HashMap<>();
+        productRepository.findByNormalizedNameIn(namesByNormalizedName.keySet())
+                .forEach(product -> productsByNormalizedName.put(normalizeProductName(product.getName()), product));
+
+        var namesToInsert = namesByNormalizedName.entrySet().stream()
+                .filter(entry -> !productsByNormalizedName.containsKey(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .toArray(String[]::new);
+
+        if (namesToInsert.length > 0) {
+            productRepository.insertMissing(namesToInsert)
+                    .forEach(product -> productsByNormalizedName.put(normalizeProductName(product.getName()), product));
+
+            // Names skipped by ON CONFLICT were inserted by a concurrent writer in the meantime
+            var insertedConcurrently = namesByNormalizedName.keySet().stream()
+                    .filter(normalizedName -> !productsByNormalizedName.containsKey(normalizedName))
+                    .toList();
+            if (!insertedConcurrently.isEmpty()) {
+                productRepository.findByNormalizedNameIn(insertedConcurrently)
+                        .forEach(product -> productsByNormalizedName.put(normalizeProductName(product.getName()), product));
+            }
+        }
 
-        List<Product> allProductsFromRecipe = new ArrayList<>();
-        allProductsFromRecipe.addAll(savedProducts);
-        allProductsFromRecipe.addAll(existingProducts);
+        return namesByNormalizedName.keySet().stream()
+                .map(productsByNormalizedName::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 
-        return allProductsFromRecipe;
+    private String normalizeProductName(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
     }
 }
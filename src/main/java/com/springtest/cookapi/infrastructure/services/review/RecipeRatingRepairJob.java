@@ -0,0 +1,104 @@
+package com.springtest.cookapi.infrastructure.services.review;
+
+import com.springtest.cookapi.infrastructure.repositories.RecipeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+// Recomputes recipe rating aggregates from the review table, one chunk of recipes per transaction.
+// Each chunk locks its recipe rows first so that concurrent addRating/removeRating updates are either
+// fully visible to the recomputation or applied on top of it, never lost.
+// The schedule fires on every node, so a run first takes a Redis lock (SET NX PX) and the other nodes skip it.
+@Component
+@Slf4j
+public class RecipeRatingRepairJob {
+    private static final String LOCK_KEY = "rating-repair-lock";
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class
+    );
+
+    private final RecipeRepository recipeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final int chunkSize;
+    private final Duration lockTtl;
+
+    public RecipeRatingRepairJob(RecipeRepository recipeRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 StringRedisTemplate redisTemplate,
+                                 @Value("${app.rating-repair.chunk-size:500}") int chunkSize,
+                                 @Value("${app.rating-repair.lock-ttl:PT1H}") Duration lockTtl) {
+        this.recipeRepository = recipeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.redisTemplate = redisTemplate;
+        this.chunkSize = chunkSize;
+        this.lockTtl = lockTtl;
+    }
+
+    // Returns the number of repaired recipes, 0 when another node holds the lock
+    @Scheduled(cron = "${app.rating-repair.cron:0 0 4 * * *}")
+    public int repair() {
+        String token = UUID.randomUUID().toString();
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, lockTtl))) {
+                log.info("Rating repair is already running on another node, skipping");
+                return 0;
+            }
+        } catch (RuntimeException e) {
+            // skipped rather than run everywhere; the aggregates are kept up to date without it
+            log.warn("Could not acquire rating repair lock, skipping", e);
+            return 0;
+        }
+
+        try {
+            return repairChunks();
+        } finally {
+            try {
+                redisTemplate.execute(RELEASE, List.of(LOCK_KEY), token);
+            } catch (RuntimeException e) {
+                // the lock expires on its own
+                log.warn("Could not release rating repair lock", e);
+            }
+        }
+    }
+
+    private int repairChunks() {
+        long afterId = 0L;
+        int repaired = 0;
+
+        while (true) {
+            long from = afterId;
+            ChunkResult chunk = transactionTemplate.execute(status -> {
+                List<Long> ids = recipeRepository.lockIdsAfter(from, chunkSize);
+                if (ids.isEmpty()) {
+                    return null;
+                }
+                Long last = ids.get(ids.size() - 1);
+                return new ChunkResult(last, recipeRepository.recomputeRatings(ids.get(0), last));
+            });
+            if (chunk == null) {
+                break;
+            }
+            repaired += chunk.repaired();
+            afterId = chunk.lastId();
+        }
+
+        if (repaired > 0) {
+            log.warn("Repaired rating aggregates of {} recipes", repaired);
+        }
+        return repaired;
+    }
+
+    private record ChunkResult(Long lastId, int repaired) {}
+}
@@ -3,6 +3,7 @@ package com.springtest.cookapi.infrastructure.services.review;
 import com.springtest.cookapi.domain.dtos.review.CreateReviewDto;
 import com.springtest.cookapi.domain.dtos.review.ReviewDto;
 import com.springtest.cookapi.domain.entities.Recipe;
+import com.springtest.cookapi.domain.entities.Review;
 import com.springtest.cookapi.domain.entities.User;
 import com.springtest.cookapi.domain.enums.SortDirection;
 import com.springtest.cookapi.domain.exceptions.ForbiddenException;
@@ -10,20 +11,24 @@ import com.springtest.cookapi.domain.exceptions.NotFoundException;
 import com.springtest.cookapi.domain.mappers.ReviewMapper;
 import com.springtest.cookapi.domain.requests.GetReviewsRequest;
 import com.springtest.cookapi.domain.responses.PageResponse;
+import com.springtest.cookapi.infrastructure.cache.CacheEvictions;
+import com.springtest.cookapi.infrastructure.cache.CacheKeys;
 import com.springtest.cookapi.infrastructure.repositories.RecipeRepository;
 import com.springtest.cookapi.infrastructure.repositories.ReviewRepository;
 import com.springtest.cookapi.infrastructure.repositories.UserRepository;
 import com.springtest.cookapi.infrastructure.services.CurrentUserService;
+import com.springtest.cookapi.infrastructure.services.recipe.RecipeListCacheIndex;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.CacheEvict;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -33,11 +38,15 @@ public class ReviewServiceImpl implements IReviewService {
     private final ReviewMapper reviewMapper;
     private final UserRepository userRepository;
     private final CurrentUserService currentUserService;
+    private final RecipeListCacheIndex recipeListCacheIndex;
+    private final CacheEvictions cacheEvictions;
+    private final CacheKeys cacheKeys;
+
+    private static final List<String> RECIPE_DETAIL_CACHES = List.of("recipe", "recipe-version");
+    private static final String DUPLICATE_REVIEW_MESSAGE = "You are not allowed to add multiple reviews to one recipe";
+
     @Override
-    @Caching(evict = {
-            @CacheEvict(value = "all-reviews", allEntries = true),
-            @CacheEvict(value = "all-recipes", allEntries = true)
-    })
+    @Transactional
     public ReviewDto addReview(CreateReviewDto createReviewDto, Long recipeId) {
         var recipe = getRecipeById(recipeId);
 
@@ -48,8 +57,8 @@ public class ReviewServiceImpl implements IReviewService {
             throw new ForbiddenException("You are not allowed to review your own recipe");
         }
 
-        if (currentUser.getReviews().stream().map(review -> review.getRecipe().getId()).collect(Collectors.toList()).contains(recipeId)) {
-            throw new ForbiddenException("You are not allowed to add multiple reviews to one recipe");
+        if (reviewRepository.existsByUserIdAndRecipeId(currentUserId, recipeId)) {
+            throw new ForbiddenException(DUPLICATE_REVIEW_MESSAGE);
         }
 
         var reviewToAdd = reviewMapper.toReview(createReviewDto);
@@ -57,15 +66,29 @@ public class ReviewServiceImpl implements IReviewService {
         reviewToAdd.setRecipe(recipe);
         reviewToAdd.setUser(currentUser);
 
-        var addedReview = reviewRepository.save(reviewToAdd);
+        Review addedReview;
+        try {
+            // the unique (user_id, recipe_id) constraint catches requests racing past the exists check
+            addedReview = reviewRepository.saveAndFlush(reviewToAdd);
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateReview(e)) {
+                throw new ForbiddenException(DUPLICATE_REVIEW_MESSAGE);
+            }
+            throw e;
+        }
+        var reviewDto = reviewMapper.toReviewDto(addedReview);
 
-        setRecipeRating(recipe);
+        recipeRepository.addRating(recipeId, addedReview.getRating());
+        recipeListCacheIndex.evictRecipe(recipeId);
+        cacheEvictions.clearAfterCommit("all-reviews");
+        cacheEvictions.clearAfterCommit("recipe-search");
+        evictRecipeDetail(recipeId);
 
-        return reviewMapper.toReviewDto(addedReview);
+        return reviewDto;
     }
 
     @Override
-    @Cacheable(value = "all-reviews", key = "'reviews' + #recipeId + ' ' + #getReviewsRequest.toString()")
+    @Cacheable(value = "all-reviews", key = "@keys.reviews(#recipeId, #getReviewsRequest)")
     public PageResponse<ReviewDto> getReviews(Long recipeId, GetReviewsRequest getReviewsRequest) {
         var recipe = getRecipeById(recipeId);
 
@@ -78,23 +101,23 @@ public class ReviewServiceImpl implements IReviewService {
                 Sort.by(sortDirection, sortBy)
         );
 
-        var reviews = reviewRepository.findByRecipe(recipe, pageRequest);
-        return PageResponse.of(reviews.map(reviewMapper::toReviewDto));
+        var reviews = reviewRepository.findSliceByRecipe(recipe, pageRequest).map(reviewMapper::toReviewDto);
+        if (getReviewsRequest.isSlice()) {
+            return PageResponse.ofSlice(reviews);
+        }
+        // every review adds to the recipe's rating, so ratingCount is the review count
+        return PageResponse.of(reviews, recipe.getRatingCount());
     }
 
     @Override
-    @Cacheable(value = "review", key = "'review' + #reviewId")
+    @Cacheable(value = "review", key = "@keys.review(#reviewId)")
     public ReviewDto getReviewById(Long reviewId) {
         var review = reviewRepository.findById(reviewId).orElseThrow(() -> new NotFoundException("Review not found with ID: " + reviewId));
         return reviewMapper.toReviewDto(review);
     }
 
     @Override
-    @Caching(evict = {
-            @CacheEvict(value = "all-reviews", allEntries = true),
-            @CacheEvict(value = "review", key = "'review' + #reviewId"),
-            @CacheEvict(value = "all-recipes", allEntries = true)
-    })
+    @Transactional
     public void deleteReview(Long reviewId) {
         var reviewToDelete = reviewRepository.findById(reviewId).orElseThrow(() -> new NotFoundException("Review not found with ID: " + reviewId));
         var currentUserId = currentUserService.getCurrentUserId();
@@ -103,9 +126,31 @@ public class ReviewServiceImpl implements IReviewService {
             throw new ForbiddenException("You are not allowed to delete this review");
         }
 
-        var recipe = reviewToDelete.getRecipe();
-        reviewRepository.deleteById(reviewId);
-        setRecipeRating(recipe);
+        var recipeId = reviewToDelete.getRecipe().getId();
+        reviewRepository.delete(reviewToDelete);
+        recipeRepository.removeRating(recipeId, reviewToDelete.getRating());
+        recipeListCacheIndex.evictRecipe(recipeId);
+        cacheEvictions.clearAfterCommit("all-reviews");
+        cacheEvictions.evictAfterCommit("review", cacheKeys.review(reviewId));
+        cacheEvictions.clearAfterCommit("recipe-search");
+        evictRecipeDetail(recipeId);
+    }
+
+    // the rating update bumped the recipe's version, so its body and the version conditional GETs compare against go
+    private void evictRecipeDetail(Long recipeId) {
+        for (String cacheName : RECIPE_DETAIL_CACHES) {
+            cacheEvictions.evictAfterCommit(cacheName, cacheKeys.recipe(recipeId));
+        }
+    }
+
+    // Foreign key and not-null violations (e.g. the recipe deleted concurrently) are not duplicates
+    private static boolean isDuplicateReview(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return Review.USER_RECIPE_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName());
+            }
+        }
+        return false;
     }
 
     private Recipe getRecipeById(Long recipeId) throws NotFoundException {
@@ -115,16 +160,4 @@ public class ReviewServiceImpl implements IReviewService {
         }
         return recipe.get();
     }
-
-    private void setRecipeRating(Recipe recipe) {
-        var allReviews = reviewRepository.findByRecipe(recipe);
-        if (allReviews.isEmpty()) {
-            recipe.setRating(null);
-        }
-        else {
-            Double rating = allReviews.stream().mapToDouble(review -> review.getRating()).average().orElse(0.0);
-            recipe.setRating(rating);
-        }
-        recipeRepository.save(recipe);
-    }
 }
@@ -0,0 +1,11 @@
+-- Full-text search over recipe name (weight A) and description (weight B)
+ALTER TABLE recipe ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(description, '')), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_recipe_search_vector ON recipe USING GIN (search_vector);
+
+-- Product names are unique case-insensitively; backs the ON CONFLICT upsert in ProductRepository
+CREATE UNIQUE INDEX IF NOT EXISTS ux_product_name_normalized ON product (lower(name));
@@ -0,0 +1,52 @@
+package com.springtest.cookapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Timing loops shared by the opt-in benchmarks in this package. They are main classes rather than tests: surefire
+// excludes the package and they report through the logger. Run one from the IDE, or with
+//   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/benchmark.classpath
+//   java -cp "target/classes:target/test-classes:$(cat target/benchmark.classpath)" com.springtest.cookapi.benchmark.<Name>
+final class Benchmark {
+    private Benchmark() {
+    }
+
+    // Operations per second on the calling thread, after a warm-up of a tenth of the iterations
+    static double opsPerSecond(int iterations, Runnable operation) {
+        for (int i = 0; i < iterations / 10; i++) {
+            operation.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        return iterations / ((System.nanoTime() - start) / 1e9);
+    }
+
+    // Operations per second of each thread while every core runs the operation at once
+    static double opsPerSecondPerCore(int iterationsPerCore, Runnable operation) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        operation.run();
+        ExecutorService executor = Executors.newFixedThreadPool(cores);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < cores; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < iterationsPerCore; j++) {
+                        operation.run();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return iterationsPerCore / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
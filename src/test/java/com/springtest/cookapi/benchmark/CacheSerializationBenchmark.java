@@ -0,0 +1,54 @@
+package com.springtest.cookapi.benchmark;
+
+import com.springtest.cookapi.domain.dtos.product.ProductDto;
+import com.springtest.cookapi.domain.dtos.recipe.RecipeDto;
+import com.springtest.cookapi.domain.dtos.user.UserDto;
+import com.springtest.cookapi.domain.responses.PageResponse;
+import com.springtest.cookapi.infrastructure.cache.CompactCacheSerializer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Payload size and serialize+deserialize round trips per second of cached recipe pages, JDK serialization
+// against CompactCacheSerializer (Smile, LZ4 above the default 1 KiB threshold)
+@Slf4j
+public class CacheSerializationBenchmark {
+    private static final int ITERATIONS = 20_000;
+
+    public static void main(String[] args) {
+        var jdkSerializer = new JdkSerializationRedisSerializer();
+        var compactSerializer = new CompactCacheSerializer(1024);
+        for (int size : new int[] {1, 10, 50}) {
+            var page = recipePage(size);
+            report("jdk", size, jdkSerializer, page);
+            report("smile+lz4", size, compactSerializer, page);
+        }
+    }
+
+    private static void report(String format, int size, RedisSerializer<Object> serializer, Object value) {
+        double opsPerSecond = Benchmark.opsPerSecond(ITERATIONS, () -> serializer.deserialize(serializer.serialize(value)));
+        log.info(String.format("%-10s %2d recipes: %6d bytes, %,10.0f round trips/s",
+                format, size, serializer.serialize(value).length, opsPerSecond));
+    }
+
+    private static PageResponse<RecipeDto> recipePage(int size) {
+        List<RecipeDto> recipes = IntStream.range(0, size)
+                .mapToObj(i -> new RecipeDto(
+                        (long) i,
+                        "recipe" + i,
+                        "A fairly ordinary description of recipe number " + i,
+                        "MEDIUM",
+                        250d + i,
+                        i % 2 == 0 ? null : 7.5,
+                        "https://res.cloudinary.com/demo/image/upload/recipe" + i + ".jpg",
+                        List.of(new ProductDto(1L, "flour"), new ProductDto(2L, "sugar"), new ProductDto(3L, "eggs")),
+                        new UserDto(1L, "Test User", "test_user"),
+                        (long) i
+                ))
+                .toList();
+        return new PageResponse<>(recipes, 0, size, size * 3L, 3, true, null);
+    }
+}
@@ -0,0 +1,53 @@
+package com.springtest.cookapi.benchmark;
+
+import com.springtest.cookapi.infrastructure.security.CustomUserDetails;
+import com.springtest.cookapi.infrastructure.security.JwtService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+// Access token verifications per second: "per-call" builds a parser and decodes the key for every token as
+// JwtService did before, "reused" keeps one parser with the verified-token cache off, "cached" is JwtService as
+// configured by default and answers repeated tokens from that cache
+@Slf4j
+public class JwtVerificationBenchmark {
+    private static final String SECRET = "testsecretkeyfortestingJIAOSJDOIASJDOASIJDOIASJDASOJSADOOJSADIO";
+    private static final int ITERATIONS = 200_000;
+
+    public static void main(String[] args) {
+        JwtService cached = jwtService(10000);
+        JwtService reused = jwtService(0);
+        var authorities = List.of(new SimpleGrantedAuthority("USER"));
+        var principal = new CustomUserDetails(1L, "test_user", "password", "Test User", authorities);
+        String token = cached.generateAccessToken(new UsernamePasswordAuthenticationToken(principal, null, authorities), 1L);
+
+        report("per-call", token, t -> Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseSignedClaims(t)
+                .getPayload());
+        report("reused", token, reused::parseClaims);
+        report("cached", token, cached::parseClaims);
+    }
+
+    private static void report(String name, String token, Consumer<String> verification) {
+        double opsPerSecond = Benchmark.opsPerSecond(ITERATIONS, () -> verification.accept(token));
+        log.info(String.format("%-10s %,12.0f verifications/s", name, opsPerSecond));
+    }
+
+    private static JwtService jwtService(long verifiedCacheSize) {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationMs", 3600000L);
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpirationMs", 7200000L);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheSize", verifiedCacheSize);
+        return jwtService;
+    }
+}
@@ -0,0 +1,44 @@
+package com.springtest.cookapi.benchmark;
+
+import com.springtest.cookapi.infrastructure.security.PasswordHashingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+
+// Hashes per second per core of candidate app.auth.password.* settings, with every core verifying at once as
+// during a login burst. Pick the strongest setting whose per-hash time the login latency budget allows.
+@Slf4j
+public class PasswordHashingBenchmark {
+    private static final String PASSWORD = "benchmark-password";
+
+    public static void main(String[] args) throws Exception {
+        List<PasswordHashingProperties> settings = List.of(
+                properties("bcrypt", 10, 16384, 2),
+                properties("bcrypt", 11, 16384, 2),
+                properties("bcrypt", 12, 16384, 2),
+                properties("argon2", 10, 16384, 2),
+                properties("argon2", 10, 19456, 2),
+                properties("argon2", 10, 65536, 3)
+        );
+        log.info("{} cores", Runtime.getRuntime().availableProcessors());
+        for (PasswordHashingProperties setting : settings) {
+            PasswordEncoder encoder = setting.createEncoder();
+            String hash = encoder.encode(PASSWORD);
+            double perCore = Benchmark.opsPerSecondPerCore(10, () -> encoder.matches(PASSWORD, hash));
+            String cost = setting.algorithm().equals(PasswordHashingProperties.BCRYPT)
+                    ? "strength=" + setting.bcrypt().strength()
+                    : "memory=" + setting.argon2().memory() + "KiB iterations=" + setting.argon2().iterations();
+            log.info(String.format("%-8s %-30s %8.1f hashes/s per core, %6.1f ms per hash",
+                    setting.algorithm(), cost, perCore, 1000 / perCore));
+        }
+    }
+
+    private static PasswordHashingProperties properties(String algorithm, int bcryptStrength, int argon2Memory, int argon2Iterations) {
+        return new PasswordHashingProperties(
+                algorithm,
+                new PasswordHashingProperties.Bcrypt(bcryptStrength),
+                new PasswordHashingProperties.Argon2(16, 32, 1, argon2Memory, argon2Iterations)
+        );
+    }
+}
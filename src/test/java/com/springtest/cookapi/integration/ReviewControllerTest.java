@@ -2,19 +2,25 @@ package com.springtest.cookapi.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.springtest.cookapi.domain.dtos.review.CreateReviewDto;
+import com.springtest.cookapi.domain.dtos.review.ReviewDto;
 import com.springtest.cookapi.domain.entities.Product;
 import com.springtest.cookapi.domain.entities.Recipe;
 import com.springtest.cookapi.domain.entities.Review;
 import com.springtest.cookapi.domain.entities.User;
 import com.springtest.cookapi.domain.enums.Difficulty;
 import com.springtest.cookapi.domain.enums.Role;
+import com.springtest.cookapi.infrastructure.cache.TwoLevelCacheManager;
 import com.springtest.cookapi.infrastructure.repositories.ProductRepository;
 import com.springtest.cookapi.infrastructure.repositories.RecipeRepository;
 import com.springtest.cookapi.infrastructure.repositories.ReviewRepository;
 import com.springtest.cookapi.infrastructure.repositories.UserRepository;
 import com.springtest.cookapi.infrastructure.services.cloudinary.ICloudinaryService;
+import com.springtest.cookapi.infrastructure.services.recipe.IRecipeService;
+import com.springtest.cookapi.infrastructure.services.review.IReviewService;
+import com.springtest.cookapi.infrastructure.services.review.RecipeRatingRepairJob;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
@@ -23,10 +29,13 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithUserDetails;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
@@ -34,10 +43,13 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -67,7 +79,17 @@ public class ReviewControllerTest {
     @Autowired
     StringRedisTemplate stringRedisTemplate;
     @Autowired
+    TwoLevelCacheManager cacheManager;
+    @Autowired
     ICloudinaryService cloudinaryService;
+    @Autowired
+    RecipeRatingRepairJob recipeRatingRepairJob;
+    @Autowired
+    IRecipeService recipeService;
+    @Autowired
+    IReviewService reviewService;
+    @Autowired
+    PlatformTransactionManager transactionManager;
 
     static UserRepository staticUserRepository;
     static RecipeRepository staticRecipeRepository;
@@ -103,6 +125,23 @@ public class ReviewControllerTest {
         seedTestData();
     }
 
+    // tests manipulate Redis directly, so each one starts with a cold L1
+    @BeforeEach
+    void clearLocalCaches() {
+        cacheManager.clearLocalCaches();
+    }
+
+    @Test
+    void openApiShouldDescribeRenderedReviewResponses() throws Exception {
+        String schema = "$.paths['%s'].get.responses['200'].content['application/json'].schema['$ref']";
+        mockMvc.perform(get("/v3/api-docs"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(schema.formatted("/api/review/recipe/{recipeId}"), is("#/components/schemas/PageResponseReviewDto")))
+                .andExpect(jsonPath(schema.formatted("/api/review/{reviewId}"), is("#/components/schemas/ReviewDto")))
+                .andExpect(jsonPath("$.components.schemas.PageResponseReviewDto.properties.content.items['$ref']", is("#/components/schemas/ReviewDto")))
+                .andExpect(jsonPath("$.paths['/api/review/recipe/{recipeId}'].get.parameters[?(@.name == 'pagingMode')].schema.enum[*]", contains("OFFSET", "SLICE")));
+    }
+
     @Test
     void getReviewsShouldReturnOkAndContainsCorrectData() throws Exception {
         mockMvc.perform(get("/api/review/recipe/{recipeId}", savedRecipeIds.get(0))
@@ -117,6 +156,29 @@ public class ReviewControllerTest {
                 .andExpect(jsonPath("$.content[0].author.username", is("test_user_2")));
     }
 
+    @Test
+    void getReviewsInSliceModeShouldSkipTotals() throws Exception {
+        mockMvc.perform(get("/api/review/recipe/{recipeId}", savedRecipeIds.get(0))
+                .param("sortDirection", "ASC")
+                .param("limit", "5")
+                .param("pageNumber", "0")
+                .param("pagingMode", "SLICE")
+        ).andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].title", is("test_review3")))
+                .andExpect(jsonPath("$.hasNext", is(false)))
+                .andExpect(jsonPath("$.totalElements", is(-1)));
+    }
+
+    @Test
+    void getReviewsInKeysetModeShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/review/recipe/{recipeId}", savedRecipeIds.get(0))
+                .param("sortDirection", "ASC")
+                .param("limit", "5")
+                .param("pageNumber", "0")
+                .param("pagingMode", "KEYSET")
+        ).andExpect(status().isBadRequest());
+    }
+
     @Test
     void getReviewsShouldReturnNotFound() throws Exception {
         mockMvc.perform(get("/api/review/recipe/{recipeId}", savedRecipeIds.get(0) + 100l)
@@ -153,8 +215,22 @@ public class ReviewControllerTest {
                 ).andExpect(status().isNotFound());
     }
 
+    @Test
+    void getReviewByIdShouldReturnNotModifiedForCurrentETag() throws Exception {
+        var etag = mockMvc.perform(get("/api/review/{reviewId}", savedReviewIds.get(3)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        mockMvc.perform(get("/api/review/{reviewId}", savedReviewIds.get(3))
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/" + etag)
+                ).andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
     @Test
     @WithUserDetails("test_user_2")
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     void getAllReviewsShouldCacheResults() throws Exception {
         String cacheKey = "all-reviews::reviews" + savedRecipeIds.get(2).toString() + " ASC 5 0";
         stringRedisTemplate.delete(cacheKey);
@@ -171,12 +247,17 @@ public class ReviewControllerTest {
 
         var createReviewDto = new CreateReviewDto("new_review", "test", 5);
 
-        mockMvc.perform(post("/api/review/recipe/{recipeId}", savedRecipeIds.get(2))
+        // evictions run after commit, so this test commits and deletes its review again
+        var addedReviewJson = mockMvc.perform(post("/api/review/recipe/{recipeId}", savedRecipeIds.get(2))
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(createReviewDto))
-        ).andExpect(status().isCreated());
-
-        assertThat(stringRedisTemplate.hasKey(cacheKey)).isFalse();
+        ).andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        try {
+            assertThat(stringRedisTemplate.hasKey(cacheKey)).isFalse();
+        } finally {
+            deleteCommittedReview(addedReviewJson);
+        }
     }
 
     @Test
@@ -272,6 +353,17 @@ public class ReviewControllerTest {
         ).andExpect(status().isForbidden());
     }
 
+    @Test
+    @WithUserDetails("test_user_2")
+    void addReviewShouldReturnForbiddenForSecondReviewOfRecipe() throws Exception {
+        var newReviewDto = new CreateReviewDto("new_review", "test", 5);
+
+        mockMvc.perform(post("/api/review/recipe/{recipeId}", savedRecipeIds.get(0))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(newReviewDto))
+        ).andExpect(status().isForbidden());
+    }
+
     @Test
     @WithUserDetails("test_user")
     void deleteReviewShouldReturnNoContent() throws Exception {
@@ -296,6 +388,109 @@ public class ReviewControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithUserDetails("test_user_2")
+    void addReviewShouldUpdateRecipeRatingAggregates() throws Exception {
+        var newReviewDto = new CreateReviewDto("new_review", "test", 9);
+
+        mockMvc.perform(post("/api/review/recipe/{recipeId}", savedRecipeIds.get(2))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(newReviewDto))
+        ).andExpect(status().isCreated());
+
+        var recipe = staticRecipeRepository.findById(savedRecipeIds.get(2)).orElseThrow();
+        assertThat(recipe.getRatingSum()).isEqualTo(9L);
+        assertThat(recipe.getRatingCount()).isEqualTo(1);
+        assertThat(recipe.getRating()).isEqualTo(9.0);
+    }
+
+    @Test
+    @WithUserDetails("test_user_2")
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    void addReviewShouldChangeRecipeETag() throws Exception {
+        var etag = mockMvc.perform(get("/api/recipe/{id}", savedRecipeIds.get(2)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        var addedReviewJson = mockMvc.perform(post("/api/review/recipe/{recipeId}", savedRecipeIds.get(2))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new CreateReviewDto("new_review", "test", 9)))
+        ).andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        try {
+            // the rating is part of the recipe body, so the cached copy must not be confirmed as current
+            mockMvc.perform(get("/api/recipe/{id}", savedRecipeIds.get(2))
+                            .header(HttpHeaders.IF_NONE_MATCH, etag)
+                    ).andExpect(status().isOk())
+                    .andExpect(jsonPath("$.rating", is(9.0)));
+        } finally {
+            deleteCommittedReview(addedReviewJson);
+        }
+    }
+
+    @Test
+    @WithUserDetails("test_user_2")
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    void recipeVersionReadBeforeReviewCommitsShouldNotStayCached() throws Exception {
+        Long recipeId = savedRecipeIds.get(2);
+        long versionBefore = recipeService.getRecipeVersion(recipeId).version();
+
+        ReviewDto addedReview = null;
+        try {
+            addedReview = new TransactionTemplate(transactionManager).execute(status -> {
+                var review = reviewService.addReview(new CreateReviewDto("new_review", "test", 9), recipeId);
+                // a request served between the write and its commit still reads the old row and caches it
+                var concurrentRead = CompletableFuture.supplyAsync(() -> recipeService.getRecipeVersion(recipeId)).join();
+                assertThat(concurrentRead.version()).isEqualTo(versionBefore);
+                return review;
+            });
+
+            assertThat(recipeService.getRecipeVersion(recipeId).version()).isGreaterThan(versionBefore);
+        } finally {
+            if (addedReview != null) {
+                deleteCommittedReview(objectMapper.writeValueAsString(addedReview));
+            }
+        }
+    }
+
+    @Test
+    @WithUserDetails("test_user")
+    void deleteReviewShouldUpdateRecipeRatingAggregates() throws Exception {
+        // seeded reviews bypass the service, so their aggregates come from the repair job
+        assertThat(recipeRatingRepairJob.repair()).isGreaterThanOrEqualTo(4);
+
+        var recipe = staticRecipeRepository.findById(savedRecipeIds.get(3)).orElseThrow();
+        assertThat(recipe.getRatingSum()).isEqualTo(6L);
+        assertThat(recipe.getRatingCount()).isEqualTo(1);
+        assertThat(recipe.getRating()).isEqualTo(6.0);
+
+        mockMvc.perform(delete("/api/review/{reviewId}", savedReviewIds.get(0)))
+                .andExpect(status().isNoContent());
+
+        recipe = staticRecipeRepository.findById(savedRecipeIds.get(3)).orElseThrow();
+        assertThat(recipe.getRatingSum()).isEqualTo(0L);
+        assertThat(recipe.getRatingCount()).isEqualTo(0);
+        assertThat(recipe.getRating()).isNull();
+        assertThat(recipeRatingRepairJob.repair()).isEqualTo(0);
+    }
+
+    @Test
+    void repairShouldSkipWhileAnotherNodeHoldsTheLock() {
+        stringRedisTemplate.opsForValue().set("rating-repair-lock", "other-node");
+        try {
+            assertThat(recipeRatingRepairJob.repair()).isEqualTo(0);
+            assertThat(stringRedisTemplate.opsForValue().get("rating-repair-lock")).isEqualTo("other-node");
+        } finally {
+            stringRedisTemplate.delete("rating-repair-lock");
+        }
+    }
+
+    private void deleteCommittedReview(String addedReviewJson) throws Exception {
+        var addedReview = objectMapper.readValue(addedReviewJson, ReviewDto.class);
+        mockMvc.perform(delete("/api/review/{reviewId}", addedReview.id()))
+                .andExpect(status().isNoContent());
+    }
+
     private static void seedTestData() {
         User user1 = staticUserRepository.findById(staticTestUser1.getId()).orElseThrow();
         User user2 = staticUserRepository.findById(staticTestUser2.getId()).orElseThrow();
@@ -315,11 +510,11 @@ public class ReviewControllerTest {
         Product product4 = products.get(3);
 
         var recipes = List.of(
-                new Recipe(null, "recipe1", "recipe1_desc", Difficulty.EASY, 200d,null, null,null, List.of(product1, product2), null, user1),
-                new Recipe(null, "recipe2", "recipe2_desc", Difficulty.MEDIUM, 300d,null, null,null, List.of(product1, product2, product3), null, user1),
-                new Recipe(null, "recipe3", "recipe3_desc", Difficulty.MEDIUM, 250d,null, null,null, List.of(product2), null, user1),
-                new Recipe(null, "recipe4", "recipe4_desc", Difficulty.HARD, 600d,null, null,null, List.of(product4, product2, product1), null, user2),
-                new Recipe(null, "recipe5", "recipe5_desc", Difficulty.EASY, 150d,null, null,null, List.of(product3, product4), null, user2)
+                new Recipe(null, "recipe1", "recipe1_desc", Difficulty.EASY, 200d,null, 0L, 0, null,null, List.of(product1, product2), null, user1),
+                new Recipe(null, "recipe2", "recipe2_desc", Difficulty.MEDIUM, 300d,null, 0L, 0, null,null, List.of(product1, product2, product3), null, user1),
+                new Recipe(null, "recipe3", "recipe3_desc", Difficulty.MEDIUM, 250d,null, 0L, 0, null,null, List.of(product2), null, user1),
+                new Recipe(null, "recipe4", "recipe4_desc", Difficulty.HARD, 600d,null, 0L, 0, null,null, List.of(product4, product2, product1), null, user2),
+                new Recipe(null, "recipe5", "recipe5_desc", Difficulty.EASY, 150d,null, 0L, 0, null,null, List.of(product3, product4), null, user2)
         );
 
         recipes = staticRecipeRepository.saveAllAndFlush(recipes);
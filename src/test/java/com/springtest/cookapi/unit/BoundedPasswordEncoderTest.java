@@ -0,0 +1,86 @@
+package com.springtest.cookapi.unit;
+
+import com.springtest.cookapi.domain.exceptions.ServiceUnavailableException;
+import com.springtest.cookapi.infrastructure.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BoundedPasswordEncoderTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.close();
+    }
+
+    @Test
+    void shouldDelegateAndRecordHashLatency() {
+        encoder = new BoundedPasswordEncoder(new PlainEncoder(null), 1, 1, Duration.ofSeconds(1), meterRegistry);
+
+        assertThat(encoder.encode("secret")).isEqualTo("{plain}secret");
+        assertThat(encoder.matches("secret", "{plain}secret")).isTrue();
+        assertThat(meterRegistry.get("auth.password.hash").tag("operation", "encode").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("auth.password.hash").tag("operation", "matches").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectWhenPoolAndQueueAreFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(new PlainEncoder(started), 1, 1, Duration.ofSeconds(5), meterRegistry);
+
+        CompletableFuture.runAsync(() -> encoder.encode("running"));
+        started.await();
+        CompletableFuture.runAsync(() -> encoder.encode("queued"));
+        while (meterRegistry.get("auth.password.hash.queue").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+
+        assertThrows(ServiceUnavailableException.class, () -> encoder.encode("rejected"));
+    }
+
+    @Test
+    void shouldGiveUpWhenHashWaitsTooLong() {
+        encoder = new BoundedPasswordEncoder(new PlainEncoder(new CountDownLatch(1)), 1, 1, Duration.ofMillis(50), meterRegistry);
+
+        assertThrows(ServiceUnavailableException.class, () -> encoder.encode("slow"));
+    }
+
+    // Blocks until the test releases it once started is given, to keep the pool busy
+    private class PlainEncoder implements PasswordEncoder {
+        private final CountDownLatch started;
+
+        PlainEncoder(CountDownLatch started) {
+            this.started = started;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            if (started != null) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "{plain}" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.springtest.cookapi.unit;
+
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.springtest.cookapi.domain.dtos.product.ProductDto;
+import com.springtest.cookapi.domain.dtos.recipe.RecipeDto;
+import com.springtest.cookapi.domain.dtos.user.UserDto;
+import com.springtest.cookapi.domain.responses.PageResponse;
+import com.springtest.cookapi.infrastructure.cache.CompactCacheSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompactCacheSerializerTest {
+    private final CompactCacheSerializer serializer = new CompactCacheSerializer(1024);
+    private final JdkSerializationRedisSerializer jdkSerializer = new JdkSerializationRedisSerializer();
+
+    @Test
+    void shouldRoundTripPageOfRecipes() {
+        var page = recipePage(3);
+
+        Object result = serializer.deserialize(serializer.serialize(page));
+
+        assertThat(result).isEqualTo(page);
+    }
+
+    @Test
+    void shouldCompressLargeValues() {
+        var page = recipePage(50);
+
+        byte[] bytes = serializer.serialize(page);
+
+        assertThat(bytes[0]).isEqualTo((byte) 2);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(page);
+    }
+
+    @Test
+    void shouldBeSmallerThanJdkSerialization() {
+        var page = recipePage(10);
+
+        assertThat(serializer.serialize(page).length).isLessThan(jdkSerializer.serialize(page).length / 2);
+    }
+
+    @Test
+    void shouldTreatUnreadableValuesAsMiss() {
+        byte[] jdkBytes = jdkSerializer.serialize(recipePage(1));
+
+        assertThat(serializer.deserialize(jdkBytes)).isNull();
+    }
+
+    @Test
+    void shouldIgnoreUnknownProperties() throws Exception {
+        Map<String, Object> olderShape = new LinkedHashMap<>();
+        olderShape.put("@class", ProductDto.class.getName());
+        olderShape.put("id", 1);
+        olderShape.put("name", "flour");
+        olderShape.put("removedField", "value");
+        byte[] smile = new SmileMapper().writeValueAsBytes(olderShape);
+        byte[] bytes = ByteBuffer.allocate(1 + smile.length).put((byte) 1).put(smile).array();
+
+        assertThat(serializer.deserialize(bytes)).isEqualTo(new ProductDto(1L, "flour"));
+    }
+
+    @Test
+    void shouldTreatTypesOutsideAllowlistAsMiss() throws Exception {
+        Map<String, Object> foreignType = new LinkedHashMap<>();
+        foreignType.put("@class", "java.util.concurrent.ConcurrentHashMap");
+        byte[] smile = new SmileMapper().writeValueAsBytes(foreignType);
+        byte[] bytes = ByteBuffer.allocate(1 + smile.length).put((byte) 1).put(smile).array();
+
+        assertThat(serializer.deserialize(bytes)).isNull();
+    }
+
+    @Test
+    void shouldRoundTripSpringDataPageContent() {
+        var page = PageResponse.ofSlice(new SliceImpl<>(recipePage(2).content(), PageRequest.of(0, 2), false));
+
+        assertThat(serializer.deserialize(serializer.serialize(page))).isEqualTo(page);
+    }
+
+    private static PageResponse<RecipeDto> recipePage(int size) {
+        List<RecipeDto> recipes = IntStream.range(0, size)
+                .mapToObj(i -> new RecipeDto(
+                        (long) i,
+                        "recipe" + i,
+                        "A fairly ordinary description of recipe number " + i,
+                        "MEDIUM",
+                        250d + i,
+                        i % 2 == 0 ? null : 7.5,
+                        "https://res.cloudinary.com/demo/image/upload/recipe" + i + ".jpg",
+                        List.of(new ProductDto(1L, "flour"), new ProductDto(2L, "sugar"), new ProductDto(3L, "eggs")),
+                        new UserDto(1L, "Test User", "test_user"),
+                        (long) i
+                ))
+                .toList();
+        return new PageResponse<>(recipes, 0, size, size * 3L, 3, true, null);
+    }
+}
@@ -0,0 +1,87 @@
+package com.springtest.cookapi.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springtest.cookapi.domain.entities.User;
+import com.springtest.cookapi.domain.enums.Role;
+import com.springtest.cookapi.infrastructure.cache.CacheInvalidation;
+import com.springtest.cookapi.infrastructure.repositories.UserRepository;
+import com.springtest.cookapi.infrastructure.security.CaffeineUserCache;
+import com.springtest.cookapi.infrastructure.security.CustomUserDetailService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CustomUserDetailServiceTest {
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CaffeineUserCache userCache;
+    private CustomUserDetailService userDetailService;
+
+    @BeforeEach
+    void setUp() {
+        userCache = new CaffeineUserCache(100, Duration.ofMinutes(5), "cache-invalidation",
+                redisTemplate, objectMapper, listenerContainer, meterRegistry);
+        userDetailService = new CustomUserDetailService(userRepository, userCache);
+
+        User user = new User("test", "test_user", "hash", Role.USER);
+        user.setId(1L);
+        when(userRepository.findByUsername("test_user")).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void shouldServeRepeatedLoadsFromCache() {
+        UserDetails first = userDetailService.loadUserByUsername("test_user");
+        UserDetails second = userDetailService.loadUserByUsername("test_user");
+
+        assertThat(second).isSameAs(first);
+        verify(userRepository, times(1)).findByUsername("test_user");
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "user-details").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEvictAndBroadcastOnPasswordUpdate() {
+        UserDetails loaded = userDetailService.loadUserByUsername("test_user");
+
+        UserDetails updated = userDetailService.updatePassword(loaded, "new-hash");
+
+        assertThat(updated.getPassword()).isEqualTo("new-hash");
+        assertThat(userCache.getUserFromCache("test_user")).isNull();
+        verify(userRepository).updatePassword("test_user", "new-hash");
+        verify(redisTemplate).convertAndSend(eq("cache-invalidation"), contains("\"key\":\"test_user\""));
+    }
+
+    @Test
+    void shouldDropEntryOnInvalidationFromAnotherNode() throws Exception {
+        userDetailService.loadUserByUsername("test_user");
+        byte[] body = objectMapper.writeValueAsBytes(new CacheInvalidation("other-node", "user-details", "test_user"));
+
+        userCache.onMessage(new DefaultMessage("cache-invalidation".getBytes(), body), null);
+
+        assertThat(userCache.getUserFromCache("test_user")).isNull();
+    }
+}
@@ -0,0 +1,116 @@
+package com.springtest.cookapi.unit;
+
+import com.springtest.cookapi.infrastructure.security.CustomUserDetails;
+import com.springtest.cookapi.infrastructure.security.JwtAuthenticationFilter;
+import com.springtest.cookapi.infrastructure.security.JwtService;
+import com.springtest.cookapi.infrastructure.security.RevokedSessionFilter;
+import com.springtest.cookapi.infrastructure.security.TokenRevocationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+    @Mock
+    private UserDetailsService userDetailsService;
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+    @Mock
+    private RevokedSessionFilter revokedSessionFilter;
+    private JwtService jwtService;
+    private JwtAuthenticationFilter filter;
+    private Authentication login;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", "testsecretkeyfortestingJIAOSJDOIASJDOASIJDOIASJDASOJSADOOJSADIO");
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationMs", 3600000L);
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpirationMs", 3600000L);
+        filter = new JwtAuthenticationFilter(jwtService, userDetailsService, tokenRevocationService, revokedSessionFilter);
+        ReflectionTestUtils.setField(filter, "stateless", true);
+
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("USER"));
+        CustomUserDetails userDetails = new CustomUserDetails(1L, "test_user", "password", "Test User", authorities);
+        login = new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldAuthenticateFromClaimsWithoutLoadingUser() throws Exception {
+        filter.doFilter(request(jwtService.generateAccessToken(login, 1L)), new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication).isNotNull();
+        CustomUserDetails principal = (CustomUserDetails) authentication.getPrincipal();
+        assertThat(principal.getUserId()).isEqualTo(1L);
+        assertThat(principal.getUsername()).isEqualTo("test_user");
+        assertThat(principal.getFullname()).isEqualTo("Test User");
+        assertThat(principal.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("USER");
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void shouldLoadUserWhenStatelessModeIsDisabled() throws Exception {
+        ReflectionTestUtils.setField(filter, "stateless", false);
+        when(userDetailsService.loadUserByUsername("test_user")).thenReturn((CustomUserDetails) login.getPrincipal());
+
+        filter.doFilter(request(jwtService.generateAccessToken(login, 1L)), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+        verify(userDetailsService).loadUserByUsername("test_user");
+    }
+
+    @Test
+    void shouldNotAuthenticateWithRefreshOrInvalidToken() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request(jwtService.generateRefreshToken(login, 1L)), new MockHttpServletResponse(), chain);
+        filter.doFilter(request("not-a-token"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(chain.getRequest()).isNotNull();
+        verify(userDetailsService, never()).loadUserByUsername(any());
+    }
+
+    @Test
+    void shouldRejectRevokedToken() throws Exception {
+        ReflectionTestUtils.setField(filter, "revocationCheckEnabled", true);
+        when(tokenRevocationService.isRevoked(any(), any())).thenReturn(true);
+
+        filter.doFilter(request(jwtService.generateAccessToken(login, 1L)), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -1,5 +1,8 @@
 package com.springtest.cookapi.unit;
 
+import com.springtest.cookapi.domain.responses.LoginResponse;
+import com.springtest.cookapi.infrastructure.security.CustomUserDetails;
+import com.springtest.cookapi.infrastructure.security.JwtClaims;
 import com.springtest.cookapi.infrastructure.security.JwtService;
 import io.jsonwebtoken.ExpiredJwtException;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,11 +10,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.lang.reflect.Method;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -32,6 +38,7 @@ class JwtServiceTest {
         jwtService = new JwtService();
         ReflectionTestUtils.setField(jwtService, "jwtSecret", "testsecretkeyfortestingJIAOSJDOIASJDOASIJDOIASJDASOJSADOOJSADIO");
         ReflectionTestUtils.setField(jwtService, "jwtExpirationMs", 3600000L);
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpirationMs", 7200000L);
     }
 
     @Test
@@ -99,4 +106,44 @@ class JwtServiceTest {
         });
     }
 
-}
\ No newline at end of file
+    @Test
+    void generateTokenPairShouldReturnExpiryDatesMatchingTheTokens() {
+        LoginResponse response = jwtService.generateTokenPair(userAuthentication(), 1L, "session", "refresh-id");
+
+        JwtClaims accessClaims = jwtService.parseClaims(response.accessToken());
+        JwtClaims refreshClaims = jwtService.parseClaims(response.refreshToken());
+        assertThat(accessClaims.subject()).isEqualTo("test_user");
+        assertThat(accessClaims.userId()).isEqualTo(1L);
+        assertThat(accessClaims.role()).isEqualTo("USER");
+        assertThat(accessClaims.isRefreshToken()).isFalse();
+        assertThat(accessClaims.sessionId()).isEqualTo("session");
+        assertThat(refreshClaims.isRefreshToken()).isTrue();
+        assertThat(refreshClaims.sessionId()).isEqualTo("session");
+        assertThat(refreshClaims.tokenId()).isEqualTo("refresh-id");
+        assertThat(response.tokenExpiration().toInstant()).isEqualTo(accessClaims.expiration());
+        assertThat(response.refreshTokenExpiration().toInstant()).isEqualTo(refreshClaims.expiration());
+    }
+
+    @Test
+    void shouldRejectExpiredTokenAfterItWasVerifiedAndCached() throws Exception {
+        Method generateToken = JwtService.class.getDeclaredMethod("generateToken",
+                Authentication.class, long.class, Map.class);
+        generateToken.setAccessible(true);
+
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(userDetails.getUsername()).thenReturn("test_user");
+
+        String token = (String) generateToken.invoke(jwtService, authentication, 2000L, Map.of());
+        assertThat(jwtService.parseClaims(token).subject()).isEqualTo("test_user");
+
+        Thread.sleep(2100);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.parseClaims(token));
+    }
+
+    private static Authentication userAuthentication() {
+        var authorities = List.of(new SimpleGrantedAuthority("USER"));
+        var principal = new CustomUserDetails(1L, "test_user", "password", "Test User", authorities);
+        return new UsernamePasswordAuthenticationToken(principal, null, authorities);
+    }
+}
@@ -0,0 +1,46 @@
+package com.springtest.cookapi.unit;
+
+import com.springtest.cookapi.infrastructure.security.PasswordHashingProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PasswordHashingPropertiesTest {
+
+    @Test
+    void shouldMatchLegacyBcryptHashAndAskForUpgrade() {
+        PasswordEncoder encoder = properties("argon2", 10, 16384, 2).createEncoder();
+        String legacyHash = new BCryptPasswordEncoder().encode("password");
+
+        assertThat(encoder.matches("password", legacyHash)).isTrue();
+        assertThat(encoder.upgradeEncoding(legacyHash)).isTrue();
+
+        String upgraded = encoder.encode("password");
+        assertThat(upgraded).startsWith("{argon2}");
+        assertThat(encoder.matches("password", upgraded)).isTrue();
+        assertThat(encoder.upgradeEncoding(upgraded)).isFalse();
+    }
+
+    @Test
+    void shouldUpgradeBcryptHashBelowTargetStrength() {
+        PasswordEncoder weak = properties("bcrypt", 4, 16384, 2).createEncoder();
+        PasswordEncoder target = properties("bcrypt", 6, 16384, 2).createEncoder();
+
+        String hash = weak.encode("password");
+
+        assertThat(hash).startsWith("{bcrypt}");
+        assertThat(target.matches("password", hash)).isTrue();
+        assertThat(target.upgradeEncoding(hash)).isTrue();
+        assertThat(target.upgradeEncoding(target.encode("password"))).isFalse();
+    }
+
+    private static PasswordHashingProperties properties(String algorithm, int bcryptStrength, int argon2Memory, int argon2Iterations) {
+        return new PasswordHashingProperties(
+                algorithm,
+                new PasswordHashingProperties.Bcrypt(bcryptStrength),
+                new PasswordHashingProperties.Argon2(16, 32, 1, argon2Memory, argon2Iterations)
+        );
+    }
+}
@@ -0,0 +1,84 @@
+package com.springtest.cookapi.unit;
+
+import com.springtest.cookapi.infrastructure.services.recipe.RecipeCoverageIndex;
+import com.springtest.cookapi.infrastructure.services.recipe.RecipeCoverageIndex.Coverage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class RecipeCoverageIndexTest {
+    private RecipeCoverageIndex recipeCoverageIndex;
+
+    @BeforeEach
+    void setUp() {
+        recipeCoverageIndex = new RecipeCoverageIndex(null);
+        recipeCoverageIndex.indexAfterCommit(1L, List.of(10L, 20L));
+        recipeCoverageIndex.indexAfterCommit(2L, List.of(10L, 20L, 30L));
+        recipeCoverageIndex.indexAfterCommit(3L, List.of(20L));
+        recipeCoverageIndex.indexAfterCommit(4L, List.of(40L, 20L, 10L));
+        recipeCoverageIndex.indexAfterCommit(5L, List.of(30L, 40L));
+    }
+
+    @Test
+    void shouldRankFullCoverageFirstThenFewestMissing() {
+        var result = recipeCoverageIndex.rank(List.of(10L, 20L), 10);
+
+        assertThat(result).containsExactly(
+                new Coverage(1L, 2, 0),
+                new Coverage(3L, 1, 0),
+                new Coverage(2L, 2, 1),
+                new Coverage(4L, 2, 1)
+        );
+    }
+
+    @Test
+    void shouldLimitResults() {
+        var result = recipeCoverageIndex.rank(List.of(10L, 20L, 30L, 40L), 2);
+
+        assertThat(result).extracting(Coverage::recipeId).containsExactly(2L, 4L);
+    }
+
+    @Test
+    void shouldApplyIncrementalUpdatesAndRemovals() {
+        recipeCoverageIndex.removeAfterCommit(1L);
+        recipeCoverageIndex.indexAfterCommit(3L, List.of(30L));
+        recipeCoverageIndex.indexAfterCommit(6L, List.of(10L));
+
+        var result = recipeCoverageIndex.rank(List.of(10L, 20L), 10);
+
+        assertThat(result).containsExactly(
+                new Coverage(6L, 1, 0),
+                new Coverage(2L, 2, 1),
+                new Coverage(4L, 2, 1)
+        );
+    }
+
+    @Test
+    void shouldReturnEmptyListForUnknownProducts() {
+        assertThat(recipeCoverageIndex.rank(List.of(99L), 10)).isEmpty();
+    }
+
+    @Test
+    void shouldKeepUpdatesCommittedDuringRebuild() {
+        var jdbcTemplate = mock(JdbcTemplate.class);
+        var index = new RecipeCoverageIndex(jdbcTemplate);
+        // the rebuild reads only recipe 1, while recipe 2 commits after the read started
+        doAnswer(invocation -> {
+            index.indexAfterCommit(2L, List.of(10L));
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        index.rebuild();
+
+        assertThat(index.rank(List.of(10L), 10)).containsExactly(new Coverage(2L, 1, 0));
+    }
+}
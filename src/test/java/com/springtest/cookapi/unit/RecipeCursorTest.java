@@ -0,0 +1,44 @@
+package com.springtest.cookapi.unit;
+
+import com.springtest.cookapi.domain.entities.Recipe;
+import com.springtest.cookapi.domain.enums.Difficulty;
+import com.springtest.cookapi.domain.enums.SortBy;
+import com.springtest.cookapi.domain.enums.SortDirection;
+import com.springtest.cookapi.domain.exceptions.BadRequestException;
+import com.springtest.cookapi.infrastructure.services.recipe.RecipeCursor;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RecipeCursorTest {
+
+    @Test
+    void shouldEncodeAndDecodeCursorForEverySortKey() {
+        Recipe recipe = new Recipe();
+        recipe.setId(42L);
+        recipe.setName("pasta | carbonara");
+        recipe.setCalories(512.5);
+        recipe.setDifficulty(Difficulty.HARD);
+
+        for (SortBy sortBy : SortBy.values()) {
+            var cursor = RecipeCursor.of(sortBy, SortDirection.DESC, recipe);
+            var decoded = RecipeCursor.decode(cursor.encode());
+
+            assertThat(decoded).isEqualTo(cursor);
+            assertThat(decoded.id()).isEqualTo(42L);
+            assertThat(decoded.matches(sortBy, SortDirection.DESC)).isTrue();
+            assertThat(decoded.matches(sortBy, SortDirection.ASC)).isFalse();
+        }
+
+        assertThat(RecipeCursor.of(SortBy.NAME, SortDirection.ASC, recipe).keyValue()).isEqualTo("pasta | carbonara");
+        assertThat(RecipeCursor.of(SortBy.CALORIES, SortDirection.ASC, recipe).keyValue()).isEqualTo(512.5);
+        assertThat(RecipeCursor.of(SortBy.DIFFICULTY, SortDirection.ASC, recipe).keyValue()).isEqualTo(Difficulty.HARD);
+    }
+
+    @Test
+    void shouldRejectMalformedCursor() {
+        assertThrows(BadRequestException.class, () -> RecipeCursor.decode("not a cursor"));
+        assertThrows(BadRequestException.class, () -> RecipeCursor.decode("Q0FMT1JJRVN8QVNDfDF8YWJj"));
+    }
+}
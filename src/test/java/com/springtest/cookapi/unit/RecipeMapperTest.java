@@ -1,5 +1,6 @@
 package com.springtest.cookapi.unit;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.springtest.cookapi.domain.dtos.product.CreateProductDto;
 import com.springtest.cookapi.domain.dtos.product.ProductDto;
 import com.springtest.cookapi.domain.dtos.recipe.CreateRecipeDto;
@@ -13,16 +14,20 @@ import com.springtest.cookapi.domain.enums.Role;
 import com.springtest.cookapi.domain.mappers.ProductMapper;
 import com.springtest.cookapi.domain.mappers.RecipeMapper;
 import com.springtest.cookapi.domain.mappers.UserMapper;
+import com.springtest.cookapi.infrastructure.repositories.RecipeRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,6 +39,9 @@ public class RecipeMapperTest {
     @Mock
     private UserMapper userMapper;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private RecipeMapper recipeMapper;
 
@@ -86,7 +94,7 @@ public class RecipeMapperTest {
 
         Recipe recipe = new Recipe(
                 1L, "Test Recipe", "Description", Difficulty.HARD, 300.0,
-                null, null,null,
+                null, 0L, 0, null,null,
                 products, new ArrayList<>(), user
         );
 
@@ -114,4 +122,46 @@ public class RecipeMapperTest {
         verify(productMapper).toDto(products.get(1));
         verify(userMapper).toUserDto(user);
     }
+
+    @Test
+    void shouldMapRecipeRowToDto() {
+        RecipeRepository.RecipeRow row = recipeRow("[{\"id\": 1, \"name\": \"Product1\"}, {\"id\": 2, \"name\": \"Product2\"}]");
+
+        RecipeDto dto = recipeMapper.toRecipeDto(row);
+
+        assertThat(dto).isEqualTo(new RecipeDto(
+                1L, "Test Recipe", "Description", "HARD", 300.0, 7.5, "https://example.com/image.jpg",
+                List.of(new ProductDto(1L, "Product1"), new ProductDto(2L, "Product2")),
+                new UserDto(1L, "Test", "testuser"),
+                3L
+        ));
+    }
+
+    @Test
+    void shouldRejectRecipeRowWithMalformedProducts() {
+        RecipeRepository.RecipeRow row = mock(RecipeRepository.RecipeRow.class);
+        when(row.getId()).thenReturn(1L);
+        when(row.getProducts()).thenReturn("not json");
+
+        assertThatThrownBy(() -> recipeMapper.toRecipeDto(row))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("recipe 1");
+    }
+
+    private static RecipeRepository.RecipeRow recipeRow(String products) {
+        RecipeRepository.RecipeRow row = mock(RecipeRepository.RecipeRow.class);
+        when(row.getId()).thenReturn(1L);
+        when(row.getName()).thenReturn("Test Recipe");
+        when(row.getDescription()).thenReturn("Description");
+        when(row.getDifficulty()).thenReturn("HARD");
+        when(row.getCalories()).thenReturn(300.0);
+        when(row.getRating()).thenReturn(7.5);
+        when(row.getImageUrl()).thenReturn("https://example.com/image.jpg");
+        when(row.getAuthorId()).thenReturn(1L);
+        when(row.getAuthorFullname()).thenReturn("Test");
+        when(row.getAuthorUsername()).thenReturn("testuser");
+        when(row.getProducts()).thenReturn(products);
+        when(row.getVersion()).thenReturn(3L);
+        return row;
+    }
 }
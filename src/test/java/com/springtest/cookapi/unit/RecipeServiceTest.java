@@ -15,6 +15,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @ExtendWith(MockitoExtension.class)
@@ -48,25 +49,32 @@ public class RecipeServiceTest {
 
         var newProduct = new Product(4L, "new product", null);
 
-        Mockito.when(productRepository.findAll()).thenReturn(productsInDb);
-        Mockito.when(productRepository.saveAll(Mockito.any())).thenReturn(List.of(newProduct));
+        Mockito.when(productRepository.findByNormalizedNameIn(Mockito.any())).thenReturn(productsInDb);
+        Mockito.when(productRepository.insertMissing(Mockito.any())).thenReturn(List.of(newProduct));
 
         var testedMethod = RecipeServiceImpl.class.getDeclaredMethod("addNotExistingProducts", List.class);
         testedMethod.setAccessible(true);
 
-        var allProducts = new ArrayList<>(productsInDb);
-        allProducts.add(newProduct);
+        var requestedProducts = List.of(
+                new Product(null, "Test1", null),
+                new Product(null, " test2 ", null),
+                new Product(null, "test3", null),
+                new Product(null, "TEST3", null),
+                new Product(null, "new product", null)
+        );
 
-        List<Product> result = (List<Product>) testedMethod.invoke(recipeService, new ArrayList<>(allProducts));
+        List<Product> result = (List<Product>) testedMethod.invoke(recipeService, new ArrayList<>(requestedProducts));
 
         Assertions.assertEquals(4, result.size());
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 4L), result.stream().map(Product::getId).toList());
 
-        ArgumentCaptor<List<Product>> productCaptor = ArgumentCaptor.forClass(List.class);
-        Mockito.verify(productRepository).saveAll(productCaptor.capture());
-        List<Product> expectedSavedProducts =  productCaptor.getValue();
+        ArgumentCaptor<Collection<String>> lookupCaptor = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(productRepository).findByNormalizedNameIn(lookupCaptor.capture());
+        Assertions.assertEquals(List.of("test1", "test2", "test3", "new product"), List.copyOf(lookupCaptor.getValue()));
 
-        Assertions.assertEquals(1, expectedSavedProducts.size());
-        Assertions.assertEquals("new product", expectedSavedProducts.get(0).getName());
+        ArgumentCaptor<String[]> insertCaptor = ArgumentCaptor.forClass(String[].class);
+        Mockito.verify(productRepository).insertMissing(insertCaptor.capture());
+        Assertions.assertArrayEquals(new String[]{"new product"}, insertCaptor.getValue());
     }
 
 }
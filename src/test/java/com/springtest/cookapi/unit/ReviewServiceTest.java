@@ -0,0 +1,31 @@
+package com.springtest.cookapi.unit;
+
+import com.springtest.cookapi.infrastructure.services.review.ReviewServiceImpl;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.SQLException;
+
+public class ReviewServiceTest {
+
+    @Test
+    public void testPrivateMethod_isDuplicateReview() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+        var testedMethod = ReviewServiceImpl.class.getDeclaredMethod("isDuplicateReview", DataIntegrityViolationException.class);
+        testedMethod.setAccessible(true);
+
+        var duplicate = violation("ux_review_user_recipe");
+        var missingRecipe = violation("fk_review_recipe");
+        var notNull = new DataIntegrityViolationException("not-null", new ConstraintViolationException("not-null", new SQLException(), null));
+
+        Assertions.assertEquals(true, testedMethod.invoke(null, duplicate));
+        Assertions.assertEquals(false, testedMethod.invoke(null, missingRecipe));
+        Assertions.assertEquals(false, testedMethod.invoke(null, notNull));
+    }
+
+    private static DataIntegrityViolationException violation(String constraintName) {
+        return new DataIntegrityViolationException(constraintName, new ConstraintViolationException(constraintName, new SQLException(), constraintName));
+    }
+}
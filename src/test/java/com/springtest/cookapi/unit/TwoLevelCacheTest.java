@@ -0,0 +1,206 @@
+package com.springtest.cookapi.unit;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springtest.cookapi.infrastructure.cache.CacheEnvelope;
+import com.springtest.cookapi.infrastructure.cache.DistributedLoadLock;
+import com.springtest.cookapi.infrastructure.cache.TwoLevelCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TwoLevelCacheTest {
+    private ConcurrentMapCache redisCache;
+    private List<String> publishedInvalidations;
+    private TwoLevelCache twoLevelCache;
+
+    @BeforeEach
+    void setUp() {
+        redisCache = new ConcurrentMapCache("recipe", false);
+        publishedInvalidations = new ArrayList<>();
+        twoLevelCache = twoLevelCache(0, null);
+    }
+
+    private TwoLevelCache twoLevelCache(double earlyRefreshBeta, DistributedLoadLock loadLock) {
+        return new TwoLevelCache(
+                "recipe",
+                redisCache,
+                Caffeine.newBuilder().maximumSize(100).build(),
+                (cacheName, key) -> publishedInvalidations.add(cacheName + "::" + key),
+                Duration.ofMinutes(1),
+                earlyRefreshBeta,
+                loadLock,
+                Runnable::run,
+                null,
+                Caffeine.newBuilder().maximumSize(100).build()
+        );
+    }
+
+    @Test
+    void shouldServeSecondReadFromLocalCache() {
+        redisCache.put("recipe_1", "value");
+
+        assertThat(twoLevelCache.get("recipe_1").get()).isEqualTo("value");
+        redisCache.evict("recipe_1");
+        assertThat(twoLevelCache.get("recipe_1").get()).isEqualTo("value");
+
+        assertThat(twoLevelCache.getRedisHits()).isEqualTo(1);
+        assertThat(twoLevelCache.getLocalHits()).isEqualTo(1);
+        assertThat(twoLevelCache.getLocalHitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    void shouldCountMissesOnBothLevels() {
+        assertThat(twoLevelCache.get("missing")).isNull();
+
+        assertThat(twoLevelCache.getLocalMisses()).isEqualTo(1);
+        assertThat(twoLevelCache.getRedisMisses()).isEqualTo(1);
+        assertThat(twoLevelCache.getRedisHitRatio()).isEqualTo(0.0);
+    }
+
+    @Test
+    void shouldLoadAndWriteThroughBothLevels() {
+        String value = twoLevelCache.get("recipe_1", () -> "loaded");
+
+        assertThat(value).isEqualTo("loaded");
+        assertThat(((CacheEnvelope) redisCache.get("recipe_1").get()).value()).isEqualTo("loaded");
+        assertThat(twoLevelCache.get("recipe_1", () -> "reloaded")).isEqualTo("loaded");
+        assertThat(twoLevelCache.getLocalHits()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEvictBothLevelsAndBroadcast() {
+        twoLevelCache.put("recipe_1", "value");
+        twoLevelCache.put("recipe_2", "value");
+
+        twoLevelCache.evict("recipe_1");
+        twoLevelCache.clear();
+
+        assertThat(twoLevelCache.get("recipe_1")).isNull();
+        assertThat(twoLevelCache.get("recipe_2")).isNull();
+        assertThat(redisCache.getNativeCache()).isEmpty();
+        assertThat(publishedInvalidations).isEqualTo(Arrays.asList("recipe::recipe_1", "recipe::null"));
+    }
+
+    @Test
+    void shouldDropOnlyLocalEntryOnRemoteInvalidation() {
+        twoLevelCache.put("recipe_1", "value");
+
+        twoLevelCache.evictLocal("recipe_1");
+
+        assertThat(twoLevelCache.getLocalSize()).isZero();
+        assertThat(((CacheEnvelope) redisCache.get("recipe_1").get()).value()).isEqualTo("value");
+        assertThat(publishedInvalidations).isEmpty();
+    }
+
+    @Test
+    void shouldKeepRenditionOnlyWhileItsEntryIsCurrent() {
+        String value = twoLevelCache.get("recipe_1", () -> new String("loaded"));
+        twoLevelCache.putRendition("recipe_1", value, "rendered");
+
+        assertThat(twoLevelCache.getRendition("recipe_1")).isEqualTo("rendered");
+
+        // a reload replaces the L1 entry, so the old rendition no longer applies
+        twoLevelCache.put("recipe_1", "reloaded");
+        assertThat(twoLevelCache.getRendition("recipe_1")).isNull();
+
+        // renditions of values that are no longer cached are not stored
+        twoLevelCache.putRendition("recipe_1", value, "stale");
+        assertThat(twoLevelCache.getRendition("recipe_1")).isNull();
+
+        twoLevelCache.putRendition("recipe_1", twoLevelCache.get("recipe_1").get(), "rendered again");
+        twoLevelCache.evictLocal("recipe_1");
+        assertThat(twoLevelCache.getRendition("recipe_1")).isNull();
+        assertThat(twoLevelCache.getRenditionHits()).isEqualTo(1);
+        assertThat(twoLevelCache.getRenditionMisses()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldReadManyKeysFromBothLevels() {
+        twoLevelCache.putAll(Map.of("recipe_1", "one"));
+        redisCache.put("recipe_2", new CacheEnvelope("two", 0, Long.MAX_VALUE));
+
+        Map<String, Object> values = twoLevelCache.getAll(List.of("recipe_1", "recipe_2", "recipe_3"));
+
+        assertThat(values).isEqualTo(Map.of("recipe_1", "one", "recipe_2", "two"));
+        assertThat(((CacheEnvelope) redisCache.get("recipe_1").get()).value()).isEqualTo("one");
+        assertThat(twoLevelCache.getLocalHits()).isEqualTo(1);
+        assertThat(twoLevelCache.getRedisHits()).isEqualTo(1);
+        assertThat(twoLevelCache.getRedisMisses()).isEqualTo(1);
+        assertThat(twoLevelCache.getLocalSize()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRunSingleLoadForConcurrentMisses() throws Exception {
+        AtomicInteger loaderCalls = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> twoLevelCache.get("recipe_1", () -> {
+                loaderCalls.incrementAndGet();
+                loaderStarted.countDown();
+                releaseLoader.await();
+                return "loaded";
+            })));
+        }
+        loaderStarted.await();
+        Thread.sleep(100);
+        releaseLoader.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+        }
+        executor.shutdown();
+        assertThat(loaderCalls.get()).isEqualTo(1);
+        assertThat(twoLevelCache.getLoads()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRefreshEntryEarlyWhenCloseToExpiry() {
+        // a huge beta makes the early refresh certain on the next read
+        twoLevelCache = twoLevelCache(1_000_000, null);
+        twoLevelCache.get("recipe_1", () -> "first");
+
+        String value = twoLevelCache.get("recipe_1", () -> "refreshed");
+
+        assertThat(value).isEqualTo("first");
+        assertThat(twoLevelCache.getEarlyRefreshes()).isEqualTo(1);
+        assertThat(twoLevelCache.get("recipe_1").get()).isEqualTo("refreshed");
+    }
+
+    @Test
+    void shouldWaitForValueLoadedByAnotherNode() {
+        DistributedLoadLock loadLock = mock(DistributedLoadLock.class);
+        when(loadLock.tryAcquire("recipe::recipe_1")).thenReturn(null);
+        when(loadLock.getWaitTimeout()).thenReturn(Duration.ofSeconds(1));
+        when(loadLock.isHeld("recipe::recipe_1")).thenAnswer(invocation -> {
+            // the other node finishes while we wait
+            redisCache.put("recipe_1", new CacheEnvelope("loaded elsewhere", 5, Long.MAX_VALUE));
+            return true;
+        });
+        twoLevelCache = twoLevelCache(0, loadLock);
+
+        String value = twoLevelCache.get("recipe_1", () -> "loaded here");
+
+        assertThat(value).isEqualTo("loaded elsewhere");
+        assertThat(twoLevelCache.getLoads()).isZero();
+    }
+}